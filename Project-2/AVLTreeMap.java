@@ -0,0 +1,99 @@
+import java.util.Comparator;
+
+/**
+ * An implementation of a sorted map using an AVL tree, so that the tree
+ * height stays within 1.44 log(n). The balance of a node is read from the
+ * subtree heights that every LinkedBinaryTree.Node keeps up to date through
+ * insertions, removals and rotations, so the auxiliary field is not used.
+ *
+ * @author Michael T. Goodrich
+ * @author Roberto Tamassia
+ * @author Michael H. Goldwasser
+ */
+public class AVLTreeMap<K, V> extends BinarySearchTreeMap<K, V> {
+
+    /**
+     * Constructs an empty map using the natural ordering of keys.
+     */
+    public AVLTreeMap() {
+        super();
+    }
+
+    /**
+     * Constructs an empty map using the given comparator to order keys.
+     *
+     * @param comparator comparator defining the order of keys in the map
+     */
+    public AVLTreeMap(Comparator<K> comparator) {
+        super(comparator);
+    }
+
+    /**
+     * Returns the height of the given tree position, 1 for a leaf and 0 for a
+     * missing child.
+     */
+    protected int nodeHeight(Position<Entry<K, V>> position) {
+        return position == null ? 0 : 1 + height(position);
+    }
+
+    /**
+     * Returns whether a position has balance factor between -1 and 1 inclusive.
+     */
+    protected boolean isBalanced(Position<Entry<K, V>> position) {
+        return Math.abs(nodeHeight(left(position)) - nodeHeight(right(position))) <= 1;
+    }
+
+    /**
+     * Returns a child of the given position with height no smaller than that of the other child.
+     */
+    protected Position<Entry<K, V>> tallerChild(Position<Entry<K, V>> position) {
+        if (nodeHeight(left(position)) > nodeHeight(right(position))) {
+            return left(position); // clear winner
+        }
+        if (nodeHeight(left(position)) < nodeHeight(right(position))) {
+            return right(position); // clear winner
+        }
+        // equal height children; break tie while matching parent's orientation
+        if (isRoot(position)) {
+            return left(position); // choice is irrelevant
+        }
+        if (position == left(parent(position))) {
+            return left(position); // return aligned child
+        }
+        return right(position);
+    }
+
+    /**
+     * Utility used to rebalance after an insert or removal operation. This
+     * traverses the path upward from the given position to the root,
+     * performing a trinode restructuring when imbalance is found. The heights
+     * are already up to date when it starts, as the tree updated them along
+     * the same path, and the rotations keep them so.
+     */
+    protected void rebalance(Position<Entry<K, V>> position) {
+        for (; position != null; position = parent(position)) {
+            if (!isBalanced(position)) { // imbalance detected
+                // perform trinode restructuring, setting position to resulting root
+                position = restructure(tallerChild(tallerChild(position)));
+            }
+        }
+    }
+
+    /**
+     * Overrides the BinarySearchTreeMap hook to rebalance after an insertion.
+     */
+    @Override
+    protected void rebalanceInsert(Position<Entry<K, V>> position) {
+        rebalance(position);
+    }
+
+    /**
+     * Overrides the BinarySearchTreeMap hook to rebalance after a removal.
+     */
+    @Override
+    protected void rebalanceDelete(Position<Entry<K, V>> parent, Position<Entry<K, V>> child, int removedAux) {
+        if (parent != null) {
+            rebalance(parent);
+        }
+    }
+}
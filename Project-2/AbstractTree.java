@@ -1,6 +1,10 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * An abstract base class providing some functionality of the Tree interface.
@@ -15,6 +19,13 @@ import java.util.List;
  */
 public abstract class AbstractTree<E> implements Tree<E> {
 
+    /**
+     * Number of structural modifications of the tree, checked by the iterators
+     * to fail fast. Concrete subclasses increment it whenever a node is added,
+     * removed or moved.
+     */
+    protected int modCount = 0;
+
     /**
      * Returns true if Position p has one or more children.
      *
@@ -85,40 +96,42 @@ public abstract class AbstractTree<E> implements Tree<E> {
     }
 
     /**
-     * Returns the number of levels separating Position position from the root.
+     * Returns the number of levels separating Position position from the root,
+     * climbing the parents in a loop so that a deep tree cannot overflow the
+     * call stack.
      *
      * @param position a valid Position within the tree
      * @throws IllegalArgumentException if position is not a valid Position
      */
     public int depth(Position<E> position) throws IllegalArgumentException {
-        return isRoot(position) ? 0 : 1 + depth(parent(position));
-    }
-
-    /**
-     * Returns the height of the tree, using depth().
-     *
-     * @return the height of the tree, using depth().
-     */
-    private int heightBad() {
-        int height = 0;
-        for (Position<E> position : positions()) {
-            if (isExternal(position)) {
-                height = Math.max(height, depth(position));
-            }
+        int depth = 0;
+        while (!isRoot(position)) {
+            position = parent(position);
+            depth++;
         }
-        return height;
+        return depth;
     }
 
     /**
-     * Returns the height of the subtree rooted at Position position.
+     * Returns the height of the subtree rooted at Position position. The
+     * subtree is walked one level at a time with a queue of the positions of
+     * the next level, rather than by recursion, so no depth is stored per
+     * position.
      *
      * @param position a valid Position within the tree
      * @throws IllegalArgumentException if position is not a valid Position
      */
     public int height(Position<E> position) throws IllegalArgumentException {
-        int height = 0;                          // base case if position is external
-        for (Position<E> child : children(position)) {
-            height = Math.max(height, 1 + height(child));
+        int height = -1;
+        Deque<Position<E>> level = new ArrayDeque<>();
+        level.add(position);
+        while (!level.isEmpty()) {
+            height++; // a level below the previous one
+            for (int count = level.size(); count > 0; count--) {
+                for (Position<E> child : children(level.remove())) {
+                    level.add(child);
+                }
+            }
         }
         return height;
     }
@@ -142,35 +155,65 @@ public abstract class AbstractTree<E> implements Tree<E> {
     }
 
     /**
-     * Adds positions of the subtree rooted at the given position to the given snapshot
-     * using a preorder traversal
+     * Returns an iterable collection of positions of the tree, reported in
+     * preorder. The positions are produced lazily with an explicit stack of the
+     * positions still to visit, rather than copied into a snapshot by
+     * recursion.
      *
-     * @param position Position serving as the root of a subtree
-     * @param snapshot a list to which results are appended
+     * @return iterable collection of the tree's positions in preorder
      */
-    private void preorderSubtree(Position<E> position, List<Position<E>> snapshot) {
-        snapshot.add(position);
-        for (Position<E> c : children(position)) {
-            preorderSubtree(c, snapshot);
-        }
+    public Iterable<Position<E>> preorder() {
+        return PreorderIterator::new;
     }
 
     /**
-     * Returns an iterable collection of positions of the tree, reported in
-     * preorder.
-     *
-     * @return iterable collection of the tree's positions in preorder
+     * Iterator over the positions in preorder. The children of a visited
+     * position are pushed in reverse order, so the first child is visited next.
+     * It fails fast if the tree is structurally modified during the iteration.
      */
-    public Iterable<Position<E>> preorder() {
-        List<Position<E>> snapshot = new ArrayList<>();
-        if (!isEmpty()) {
-            preorderSubtree(root(), snapshot);   // fill the snapshot recursively
+    private class PreorderIterator implements Iterator<Position<E>> {
+        private final Deque<Position<E>> pending = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+
+        PreorderIterator() {
+            if (root() != null) {
+                pending.push(root());
+            }
+        }
+
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        public Position<E> next() {
+            if (pending.isEmpty()) {
+                throw new NoSuchElementException("no more positions");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Position<E> position = pending.pop();
+            Iterable<Position<E>> children = children(position);
+            List<Position<E>> list;
+            if (children instanceof List) { // as returned by the binary trees, so it needs no copy
+                list = (List<Position<E>>) children;
+            } else {
+                list = new ArrayList<>();
+                for (Position<E> child : children) {
+                    list.add(child);
+                }
+            }
+            for (int i = list.size() - 1; i >= 0; i--) {
+                pending.push(list.get(i));
+            }
+            return position;
         }
-        return snapshot;
     }
 
     /**
-     * This nested class adapts the iteration produced by positions() to return elements.
+     * This nested class adapts the iteration produced by positions() to return
+     * elements. It is as lazy as positions(), so stopping early costs only the
+     * elements visited.
      */
     private class ElementIterator implements Iterator<E> {
         final Iterator<Position<E>> posIterator = positions().iterator();
@@ -183,9 +226,15 @@ public abstract class AbstractTree<E> implements Tree<E> {
             return posIterator.next().getElement();
         }
 
+        /**
+         * Not supported: a tree position may have two children, so removing
+         * it cannot be done in general while iterating.
+         *
+         * @throws UnsupportedOperationException always
+         */
         @Override
         public void remove() {
-            posIterator.remove();
+            throw new UnsupportedOperationException("remove");
         }
     }
 
@@ -0,0 +1,682 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Concrete implementation of a binary tree storing its nodes in parallel
+ * arrays. A node is a slot index: its element is kept in an Object[] and its
+ * parent, left and right links as int indices, so the tree holds no node
+ * objects at all. Slots of removed nodes are chained in a free list and reused
+ * by later additions.
+ * <p>
+ * A node costs 20 bytes (one reference and four ints) against 40 bytes for a
+ * LinkedBinaryTree.Node with compressed references (a 12 byte header, four
+ * references, its subtree size and height, and padding), and nodes added in
+ * sequence sit next to each other in memory. The Positions returned by this
+ * tree are small handles created on demand; they compare equal when they
+ * refer to the same node. The index-based accessors (rootIndex, leftIndex,
+ * rightIndex, parentIndex and elementAt) walk the tree without creating any
+ * handle. Each slot has a stamp that changes whenever its node is removed,
+ * and a handle records the stamp of its slot, so that, as with
+ * LinkedBinaryTree, a handle kept across the removal of its node is rejected
+ * for good, even once the slot is reused.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ArrayBinaryTree<E> extends AbstractBinaryTree<E> {
+
+    /**
+     * Index value standing for a missing node.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Default number of slots of a new tree.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Elements stored at the slots.
+     */
+    protected Object[] elements;
+
+    /**
+     * Parent index of each slot, NONE for the root and the slot itself for a
+     * removed node.
+     */
+    protected int[] parents;
+
+    /**
+     * Left child index of each slot, or the next free slot for a removed node.
+     */
+    protected int[] lefts;
+
+    /**
+     * Right child index of each slot.
+     */
+    protected int[] rights;
+
+    /**
+     * Stamp of each slot, changed when its node is removed. It is not reset by
+     * clear, so that handles taken before stay rejected.
+     */
+    protected int[] stamps;
+
+    /**
+     * Index of the root slot.
+     */
+    protected int root = NONE;
+
+    /**
+     * Number of nodes in the tree.
+     */
+    protected int size = 0;
+
+    /**
+     * Number of slots used so far, free or not.
+     */
+    protected int used = 0;
+
+    /**
+     * Head of the list of free slots.
+     */
+    protected int free = NONE;
+
+    /**
+     * Constructs an empty tree.
+     */
+    public ArrayBinaryTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty tree with room for a given number of nodes before the
+     * arrays grow.
+     *
+     * @param capacity the initial number of slots
+     */
+    public ArrayBinaryTree(int capacity) {
+        capacity = Math.max(1, capacity);
+        elements = new Object[capacity];
+        parents = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        stamps = new int[capacity];
+    }
+
+    /**
+     * Takes a slot from the free list, or from the end of the arrays, and
+     * initializes it with the given element and links.
+     */
+    protected int allocate(E element, int parent) {
+        int index;
+        if (free != NONE) { // reuse a removed slot
+            index = free;
+            free = lefts[index];
+        } else {
+            if (used == elements.length) { // grow all the arrays together
+                int capacity = used * 2;
+                elements = Arrays.copyOf(elements, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                if (stamps.length < capacity) { // it may already be larger after a clear
+                    stamps = Arrays.copyOf(stamps, capacity);
+                }
+            }
+            index = used++;
+        }
+        elements[index] = element;
+        parents[index] = parent;
+        lefts[index] = NONE;
+        rights[index] = NONE;
+        size++;
+        modCount++;
+
+        return index;
+    }
+
+    /**
+     * Returns a slot to the free list.
+     */
+    protected void release(int index) {
+        elements[index] = null; // help garbage collection
+        parents[index] = index; // our convention for defunct node
+        rights[index] = NONE;
+        lefts[index] = free;
+        free = index;
+        stamps[index]++; // the handles on the removed node no longer match
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Verifies that a Position is a handle of this tree on a node that has not
+     * been removed.
+     *
+     * @param position a Position (that should belong to this tree)
+     * @return the slot index for the position
+     * @throws IllegalArgumentException if an invalid position is detected
+     */
+    protected int validate(Position<E> position) throws IllegalArgumentException {
+        if (!(position instanceof ArrayBinaryTree.Slot)) {
+            throw new IllegalArgumentException("Not a valid position type.");
+        }
+        Slot slot = (Slot) position;
+        if (slot.tree() != this) {
+            throw new IllegalArgumentException("position does not belong to this tree");
+        }
+        if (!slot.isLive()) {
+            throw new IllegalArgumentException("position is no longer in the tree");
+        }
+
+        return slot.index;
+    }
+
+    /**
+     * Returns a handle for the given slot, or null for NONE.
+     */
+    protected Position<E> position(int index) {
+        return index == NONE ? null : new Slot(index);
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     *
+     * @return number of nodes in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // index-based accessors
+
+    /**
+     * Returns the slot of the root, or NONE if the tree is empty.
+     */
+    public int rootIndex() {
+        return root;
+    }
+
+    /**
+     * Returns the slot of the parent of a given slot, or NONE for the root.
+     */
+    public int parentIndex(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Returns the slot of the left child of a given slot, or NONE.
+     */
+    public int leftIndex(int index) {
+        return lefts[index];
+    }
+
+    /**
+     * Returns the slot of the right child of a given slot, or NONE.
+     */
+    public int rightIndex(int index) {
+        return rights[index];
+    }
+
+    /**
+     * Returns the element stored at a given slot.
+     */
+    @SuppressWarnings("unchecked")
+    public E elementAt(int index) {
+        return (E) elements[index];
+    }
+
+    // accessor methods (not already implemented in AbstractBinaryTree)
+
+    /**
+     * Returns the root Position of the tree (or null if tree is empty).
+     *
+     * @return root Position of the tree (or null if tree is empty)
+     */
+    public Position<E> root() {
+        return position(root);
+    }
+
+    /**
+     * Returns the Position of position's parent (or null if position is root).
+     *
+     * @param position a valid Position within the tree
+     * @return Position of position's parent (or null if position is root)
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    public Position<E> parent(Position<E> position) throws IllegalArgumentException {
+        return position(parents[validate(position)]);
+    }
+
+    /**
+     * Returns the Position of position's left child (or null if no child exists).
+     *
+     * @param position a valid Position within the tree
+     * @return the Position of the left child (or null if no child exists)
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    public Position<E> left(Position<E> position) throws IllegalArgumentException {
+        return position(lefts[validate(position)]);
+    }
+
+    /**
+     * Returns the Position of position's right child (or null if no child exists).
+     *
+     * @param position a valid Position within the tree
+     * @return the Position of the right child (or null if no child exists)
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    public Position<E> right(Position<E> position) throws IllegalArgumentException {
+        return position(rights[validate(position)]);
+    }
+
+    /**
+     * Returns true if the given position represents the root of the tree. The
+     * slots are compared since handles are not unique.
+     *
+     * @param position a valid Position within the tree
+     * @return true if position is the root of the tree, false otherwise
+     */
+    @Override
+    public boolean isRoot(Position<E> position) {
+        return validate(position) == root;
+    }
+
+    /**
+     * Returns the Position of position's sibling (or null if no sibling exists).
+     *
+     * @param position a valid Position within the tree
+     * @return the Position of the sibling (or null if no sibling exists)
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    @Override
+    public Position<E> sibling(Position<E> position) throws IllegalArgumentException {
+        int index = validate(position);
+        int parent = parents[index];
+        if (parent == NONE) {
+            return null; // the root has no sibling
+        }
+        return position(index == lefts[parent] ? rights[parent] : lefts[parent]);
+    }
+
+    /**
+     * Returns the number of children of the given position.
+     *
+     * @param position a valid Position within the tree
+     * @return number of children of the position
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    @Override
+    public int numChildren(Position<E> position) {
+        int index = validate(position);
+        return (lefts[index] != NONE ? 1 : 0) + (rights[index] != NONE ? 1 : 0);
+    }
+
+    /**
+     * Places the given element at the root of an empty tree and returns its new
+     * Position.
+     *
+     * @param element the new element
+     * @return the Position of the new element
+     * @throws IllegalStateException if the tree is not empty
+     */
+    public Position<E> addRoot(E element) throws IllegalStateException {
+        if (!isEmpty()) {
+            throw new IllegalStateException("Tree is not empty");
+        }
+        root = allocate(element, NONE);
+
+        return position(root);
+    }
+
+    // update methods supported by this class
+
+    /**
+     * Creates a new left child of the given position storing the given element and returns its
+     * Position.
+     *
+     * @param position the Position to the left of which the new element is inserted
+     * @param element  the new element
+     * @return the Position of the new element
+     * @throws IllegalArgumentException if position is not a valid Position
+     * @throws IllegalArgumentException if position already has a left child
+     */
+    public Position<E> addLeft(Position<E> position, E element) throws IllegalArgumentException {
+        int parent = validate(position);
+        if (lefts[parent] != NONE) {
+            throw new IllegalArgumentException("position already has a left child");
+        }
+        int child = allocate(element, parent);
+        lefts[parent] = child;
+
+        return position(child);
+    }
+
+    /**
+     * Creates a new right child of the given position storing the given element and returns
+     * its Position.
+     *
+     * @param position the Position to the right of which the new element is inserted
+     * @param element  the new element
+     * @return the Position of the new element
+     * @throws IllegalArgumentException if position is not a valid Position
+     * @throws IllegalArgumentException if position already has a right child
+     */
+    public Position<E> addRight(Position<E> position, E element) throws IllegalArgumentException {
+        int parent = validate(position);
+        if (rights[parent] != NONE) {
+            throw new IllegalArgumentException("position already has a right child");
+        }
+        int child = allocate(element, parent);
+        rights[parent] = child;
+
+        return position(child);
+    }
+
+    /**
+     * Replaces the element at the given position with the given element and returns the
+     * replaced element.
+     *
+     * @param position the relevant Position
+     * @param element  the new element
+     * @return the replaced element
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    public E set(Position<E> position, E element) throws IllegalArgumentException {
+        int index = validate(position);
+        E temp = elementAt(index);
+        elements[index] = element;
+
+        return temp;
+    }
+
+    /**
+     * Attaches trees t1 and t2, respectively, as the left and right subtree of
+     * the leaf the given position. The nodes of t1 and t2 are copied into the
+     * slots of this tree. As a side effect, t1 and t2 are set to empty trees.
+     *
+     * @param position a leaf of the tree
+     * @param t1       a tree whose structure becomes the left child of position
+     * @param t2       a tree whose structure becomes the right child of position
+     * @throws IllegalArgumentException if position is not a valid Position
+     * @throws IllegalArgumentException if position is not a leaf
+     */
+    public void attach(Position<E> position, ArrayBinaryTree<E> t1,
+                       ArrayBinaryTree<E> t2) throws IllegalArgumentException {
+        int index = validate(position);
+        if (isInternal(position)) {
+            throw new IllegalArgumentException("position must be a leaf");
+        }
+        if (!t1.isEmpty()) {                  // attach t1 as left subtree
+            lefts[index] = copySubtree(t1, index);
+            t1.clear();
+        }
+        if (!t2.isEmpty()) {                  // attach t2 as right subtree
+            rights[index] = copySubtree(t2, index);
+            t2.clear();
+        }
+    }
+
+    /**
+     * Copies all the nodes of a given tree below a given parent slot, walking
+     * the source in preorder without recursion, and returns the slot of the
+     * copied root.
+     */
+    private int copySubtree(ArrayBinaryTree<E> source, int parent) {
+        int[] copies = new int[source.used]; // slot in this tree of each source slot
+        int copiedRoot = NONE;
+        for (int s = source.root; s != NONE; s = source.preorderNext(s)) {
+            int sourceParent = source.parents[s];
+            int copyParent = sourceParent == NONE ? parent : copies[sourceParent];
+            int copy = allocate(source.elementAt(s), copyParent);
+            copies[s] = copy;
+            if (sourceParent == NONE) {
+                copiedRoot = copy;
+            } else if (s == source.lefts[sourceParent]) {
+                lefts[copyParent] = copy;
+            } else {
+                rights[copyParent] = copy;
+            }
+        }
+        return copiedRoot;
+    }
+
+    /**
+     * Empties the tree and releases its arrays to their initial capacity,
+     * except the stamps, which are all changed so that no handle taken before
+     * matches a slot used later.
+     */
+    private void clear() {
+        for (int i = 0; i < used; i++) {
+            stamps[i]++;
+        }
+        elements = new Object[DEFAULT_CAPACITY];
+        parents = new int[DEFAULT_CAPACITY];
+        lefts = new int[DEFAULT_CAPACITY];
+        rights = new int[DEFAULT_CAPACITY];
+        root = NONE;
+        size = 0;
+        used = 0;
+        free = NONE;
+        modCount++;
+    }
+
+    /**
+     * Removes the node at the given position and replaces it with its child, if any.
+     *
+     * @param position the relevant Position
+     * @return element that was removed
+     * @throws IllegalArgumentException if position is not a valid Position
+     * @throws IllegalArgumentException if position has two children.
+     */
+    public E remove(Position<E> position) throws IllegalArgumentException {
+        int index = validate(position);
+        if (lefts[index] != NONE && rights[index] != NONE) {
+            throw new IllegalArgumentException("position has two children");
+        }
+        int child = (lefts[index] != NONE ? lefts[index] : rights[index]);
+        int parent = parents[index];
+        if (child != NONE) {
+            parents[child] = parent;            // grandparent becomes its parent
+        }
+        if (index == root) {
+            root = child;                       // child becomes root
+        } else if (index == lefts[parent]) {
+            lefts[parent] = child;
+        } else {
+            rights[parent] = child;
+        }
+        E temp = elementAt(index);
+        release(index);
+
+        return temp;
+    }
+
+    /**
+     * Returns the slot following a given slot in preorder, or NONE.
+     */
+    protected int preorderNext(int index) {
+        if (lefts[index] != NONE) {
+            return lefts[index];
+        }
+        if (rights[index] != NONE) {
+            return rights[index];
+        }
+        for (int parent = parents[index]; parent != NONE; index = parent, parent = parents[index]) {
+            if (index == lefts[parent] && rights[parent] != NONE) {
+                return rights[parent]; // next subtree to the right
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the leftmost slot of the subtree rooted at a given slot.
+     */
+    protected int leftmost(int index) {
+        while (lefts[index] != NONE) {
+            index = lefts[index];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the slot following a given slot in inorder, or NONE.
+     */
+    protected int inorderNext(int index) {
+        if (rights[index] != NONE) {
+            return leftmost(rights[index]);
+        }
+        int parent = parents[index];
+        while (parent != NONE && index == rights[parent]) { // climb while coming from the right
+            index = parent;
+            parent = parents[index];
+        }
+        return parent;
+    }
+
+    /**
+     * Returns the first slot in postorder of the subtree rooted at a given slot.
+     */
+    protected int postorderFirst(int index) {
+        for (;;) {
+            if (lefts[index] != NONE) {
+                index = lefts[index];
+            } else if (rights[index] != NONE) {
+                index = rights[index];
+            } else {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot following a given slot in postorder, or NONE.
+     */
+    protected int postorderNext(int index) {
+        int parent = parents[index];
+        if (parent == NONE) {
+            return NONE;
+        }
+        if (index == lefts[parent] && rights[parent] != NONE) {
+            return postorderFirst(rights[parent]); // right sibling subtree comes first
+        }
+        return parent;
+    }
+
+    public Iterable<E> preorderElements() {
+        return () -> new SlotIterator(root) {
+            int advance(int index) {
+                return preorderNext(index);
+            }
+        };
+    }
+
+    public Iterable<E> inorderElements() {
+        return () -> new SlotIterator(root == NONE ? NONE : leftmost(root)) {
+            int advance(int index) {
+                return inorderNext(index);
+            }
+        };
+    }
+
+    public Iterable<E> postorderElements() {
+        return () -> new SlotIterator(root == NONE ? NONE : postorderFirst(root)) {
+            int advance(int index) {
+                return postorderNext(index);
+            }
+        };
+    }
+
+    /**
+     * Iterator over the elements of the slots in the order given by advance,
+     * using the index links only. It fails fast if the tree is structurally
+     * modified during the iteration.
+     */
+    private abstract class SlotIterator implements Iterator<E> {
+        private int next;
+        private final int expectedModCount = modCount;
+
+        SlotIterator(int first) {
+            next = first;
+        }
+
+        abstract int advance(int index);
+
+        public boolean hasNext() {
+            return next != NONE;
+        }
+
+        public E next() {
+            if (next == NONE) {
+                throw new NoSuchElementException("no more elements");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            int current = next;
+            next = advance(current);
+            return elementAt(current);
+        }
+    }
+
+    /**
+     * Handle on a slot of the tree, implementing Position.
+     */
+    protected class Slot implements Position<E> {
+        /**
+         * The slot index in the arrays of the tree.
+         */
+        protected final int index;
+
+        /**
+         * The stamp of the slot when the handle was created.
+         */
+        protected final int stamp;
+
+        Slot(int index) {
+            this.index = index;
+            this.stamp = stamps[index];
+        }
+
+        /**
+         * Returns true if the node of the handle is still in the tree.
+         */
+        boolean isLive() {
+            return index < used && stamps[index] == stamp;
+        }
+
+        /**
+         * Returns the tree owning the slot.
+         */
+        ArrayBinaryTree<E> tree() {
+            return ArrayBinaryTree.this;
+        }
+
+        public E getElement() throws IllegalStateException {
+            if (!isLive()) {
+                throw new IllegalStateException("position is no longer in the tree");
+            }
+            return elementAt(index);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArrayBinaryTree.Slot && ((ArrayBinaryTree<?>.Slot) other).index == index
+                    && ((ArrayBinaryTree<?>.Slot) other).stamp == stamp
+                    && ((ArrayBinaryTree<?>.Slot) other).tree() == tree();
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+    }
+
+}
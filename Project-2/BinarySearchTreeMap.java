@@ -1,9 +1,29 @@
 import java.util.Comparator;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Realization of a map by means of a binary search tree
+ * <p>
+ * The tree itself is not rebalanced. Balanced variants are selected by
+ * constructing an AVLTreeMap or an RBTreeMap, which override the
+ * rebalanceInsert, rebalanceDelete and rebalanceAccess hooks.
+ * <p>
+ * Every node of the tree holds an entry and missing children are null, so
+ * size() is the number of entries. With compressed references a BSTNode takes
+ * 40 bytes (header, four links, size, height and aux) and a BSTEntry 24
+ * bytes. The former layout expanded every external node into an internal node
+ * with two empty sentinel children, which kept n + 1 sentinels for n entries,
+ * about 104 bytes per entry; without sentinels an entry costs 64 bytes,
+ * halving the node memory of the tree. Keys and values are not included in these figures.
  *
  * @author Takunari Miyazaki
  * 
@@ -13,7 +33,7 @@ import java.util.List;
  * 
  */
 public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
-        implements Map<K, V> {
+        implements SortedMap<K, V> {
 
     /**
      * comparator for collection of objects
@@ -21,21 +41,80 @@ public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
     protected final Comparator<K> comparator; // comparator
 
     /**
-     * Node variable used by get(), put() and remove()
+     * Number of entries below which a parallel reduction stops splitting.
+     */
+    protected static final int SPLIT_THRESHOLD = 1 << 12;
+
+    /**
+     * Node variable set by put() and remove() to the node where rebalancing
+     * starts. get() does not touch it, so a search never writes to the map.
      */
     protected Position<Entry<K, V>> actionPos; // a node variable
 
+    /**
+     * Metrics recorded by the operations, or null when they are disabled, so
+     * that a disabled map pays a single null check per operation.
+     */
+    private volatile TreeMapMetrics metrics;
+
     /**
      * Creates a BinarySearchTreeMap with a default comparator.
      */
     public BinarySearchTreeMap() {
         comparator = new DefaultComparator<>();
-        addRoot(null);
     }
 
     public BinarySearchTreeMap(Comparator<K> comparator) {
         this.comparator = comparator;
-        addRoot(null);
+    }
+
+    /**
+     * Starts recording the metrics of the operations of the map, and returns
+     * them. If they are already recorded, the same metrics are returned.
+     */
+    public synchronized TreeMapMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new TreeMapMetrics(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops recording the metrics of the map.
+     */
+    public synchronized void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Returns the metrics recorded for the map, or null when they are disabled.
+     */
+    public TreeMapMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Creates a BSTNode so that every node of the map carries the auxiliary
+     * balance field used by the balanced variants.
+     */
+    @Override
+    protected Node<Entry<K, V>> createNode(Entry<K, V> element, Node<Entry<K, V>> parent,
+            Node<Entry<K, V>> left, Node<Entry<K, V>> right) {
+        return new BSTNode<>(element, parent, left, right);
+    }
+
+    /**
+     * Returns the auxiliary balance value stored at a given node.
+     */
+    protected int getAux(Position<Entry<K, V>> position) {
+        return ((BSTNode<Entry<K, V>>) position).getAux();
+    }
+
+    /**
+     * Stores an auxiliary balance value at a given node.
+     */
+    protected void setAux(Position<Entry<K, V>> position, int value) {
+        ((BSTNode<Entry<K, V>>) position).setAux(value);
     }
 
     /**
@@ -87,72 +166,211 @@ public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
     }
 
     /**
-     * Auxiliary method for inserting an entry at an external node. Inserts a given
-     * entry at a given external position,
-     * expanding the external node to be internal with empty external children, and
-     * then returns the inserted entry.
-     * (page 11.1.2)
+     * Auxiliary method for inserting an entry as a new leaf. Adds a given entry
+     * as the left or right child of a given position, or as the root when the
+     * position is null, and then returns the new position.
      *
-     * @param position The external position
-     * @param entry    The entry to add to the external
-     * @return The entry added
+     * @param parent The position receiving the new leaf, or null for an empty tree
+     * @param entry  The entry to add
+     * @param asLeft Whether the leaf becomes the left child of the parent
+     * @return The position of the new leaf
      */
-    protected Entry<K, V> insertAtExternal(Position<Entry<K, V>> position, Entry<K, V> entry) {
+    protected Position<Entry<K, V>> insertLeaf(Position<Entry<K, V>> parent, BSTEntry<K, V> entry,
+            boolean asLeft) {
+        Position<Entry<K, V>> leaf;
+        if (parent == null) {
+            leaf = addRoot(entry); // first entry of the map
+        } else {
+            leaf = asLeft ? addLeft(parent, entry) : addRight(parent, entry);
+        }
+        entry.position = leaf; // the sizes of the ancestors are updated by the tree
 
-        set(position, entry); // insert an entry at an external node
-        addLeft(position, null); // add left child for the entry
-        addRight(position, null); // add right child for the entry
+        return leaf;
+    }
 
-        return entry;
+    /**
+     * Auxiliary method for removing a node having at most one child. The child,
+     * if any, takes the place of the removed node.
+     *
+     * @param position The position to remove.
+     */
+    protected void removeNode(Position<Entry<K, V>> position) {
+        remove(position); // the child, if any, is promoted
+    }
 
+    /**
+     * Returns the number of entries in the subtree rooted at a given node, 0 for
+     * a missing child.
+     */
+    protected int count(Node<Entry<K, V>> node) {
+        return node == null ? 0 : node.getSize();
     }
 
     /**
-     * Auxiliary method for removing an external node and its parent. Removes a
-     * given external node and its
-     * parent, replacing external's parent with external's sibling.
-     *
-     * @param external The position to remove.
+     * Recomputes the entry count and height of a node from its children.
+     */
+    private void recompute(Node<Entry<K, V>> node) {
+        node.setSize(1 + count(node.getLeft()) + count(node.getRight()));
+        node.recomputeHeight();
+    }
+
+    /**
+     * Auxiliary method used by get and remove. Returns the node holding a given
+     * key in the subtree rooted at a given position, or null if the key is not
+     * found. The search loops over the node links directly rather than
+     * recursing, so its cost does not depend on the stack depth, and the
+     * starting position is validated only once.
      */
-    protected void removeExternal(Position<Entry<K, V>> external) {
-        if (!isExternal(external)) { // check if position is not external
-            return;
+    protected Position<Entry<K, V>> treeSearch(K key, Position<Entry<K, V>> position) {
+        Node<Entry<K, V>> node = position == null ? null : validate(position);
+        int comparisons = 0;
+        while (node != null) {
+            int comp = comparator.compare(key, node.getElement().getKey());
+            comparisons++;
+            if (comp < 0) {
+                node = node.getLeft(); // search left subtree
+            } else if (comp > 0) {
+                node = node.getRight(); // search right subtree
+            } else {
+                break; // node where key is found
+            }
+        }
+        TreeMapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordSearch(comparisons);
         }
-        if (isRoot(external)) { // check if it's the root's position
-            remove(external); // remove the root
+        return node; // null if key not found
+    }
+
+    /**
+     * Rebalancing hook called after a new entry has been inserted at the given
+     * node. The plain binary search tree does not rebalance.
+     */
+    protected void rebalanceInsert(Position<Entry<K, V>> position) {
+    }
+
+    /**
+     * Rebalancing hook called after a node has been removed, with the parent of
+     * the removed node (null if it was the root), the child promoted in its
+     * place (null if it had none) and the auxiliary value it held. The plain
+     * binary search tree does not rebalance.
+     */
+    protected void rebalanceDelete(Position<Entry<K, V>> parent, Position<Entry<K, V>> child, int removedAux) {
+    }
+
+    /**
+     * Rebalancing hook called after a node has been accessed by a search or an
+     * update of an existing key. The plain binary search tree does not
+     * rebalance. A subclass restructuring the tree here makes get() a writer,
+     * which ConcurrentTreeMap does not support.
+     */
+    protected void rebalanceAccess(Position<Entry<K, V>> position) {
+    }
+
+    /**
+     * Balancing hook returning the auxiliary value of a node placed by
+     * loadSorted, given the height of its subtree (1 for a leaf), its depth
+     * (0 for the root) and the depth of the deepest nodes of the tree. The plain
+     * binary search tree does not use the auxiliary value.
+     */
+    protected int balancedAux(int height, int depth, int maxDepth) {
+        return 0;
+    }
+
+    /**
+     * Relinks a parent node with its oriented child node, which may be missing.
+     */
+    private void relink(Node<Entry<K, V>> parent, Node<Entry<K, V>> child, boolean makeLeftChild) {
+        if (child != null) {
+            child.setParent(parent);
+        }
+        if (makeLeftChild) {
+            parent.setLeft(child);
         } else {
-            Position<Entry<K, V>> parent = parent(external); // get the position of the parent
-            remove(external); // remove the child at external
-            remove(parent); // remove the parent
+            parent.setRight(child);
         }
     }
 
     /**
-     * Auxiliary method used by get, put, and remove.
+     * Rotates the given position above its parent. The entries stay with their
+     * nodes, so the positions stored in the entries remain valid.
+     * (page 11.2)
+     *
+     * @param position The position to move up; it must not be the root
      */
-    protected Position<Entry<K, V>> treeSearch(K key, Position<Entry<K, V>> position) {
-        if (isExternal(position)) {
-            return position; // key not found; return external node
+    protected void rotate(Position<Entry<K, V>> position) {
+        Node<Entry<K, V>> x = validate(position);
+        Node<Entry<K, V>> y = x.getParent(); // we assume this exists
+        Node<Entry<K, V>> z = y.getParent(); // grandparent (possibly null)
+        // the outer subtree of x moves up with x, the outer subtree of y moves down with y
+        totalDepth += x == y.getLeft() ? count(y.getRight()) - count(x.getLeft())
+                : count(y.getLeft()) - count(x.getRight());
+        if (z == null) {
+            root = x; // x becomes the root of the tree
+            x.setParent(null);
+        } else {
+            relink(z, x, y == z.getLeft()); // x becomes direct child of z
         }
-        K curKey = key(position);
-        int comp = comparator.compare(key, curKey);
-        if (comp < 0) {
-            return treeSearch(key, left(position)); // search left subtree
-        } else if (comp > 0) {
-            return treeSearch(key, right(position)); // search right subtree
+        // now rotate x and y, including transfer of middle subtree
+        if (x == y.getLeft()) {
+            relink(y, x.getRight(), true); // x's right child becomes y's left
+            relink(x, y, false); // y becomes x's right child
+        } else {
+            relink(y, x.getLeft(), false); // x's left child becomes y's right
+            relink(x, y, true); // y becomes left child of x
+        }
+        recompute(y); // y is now below x
+        recompute(x);
+        recomputeHeights(z); // x has the entries of y, but maybe not its height
+        modCount++; // the nodes moved, so the successors of a live iterator may have changed
+        TreeMapMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordRotation();
+        }
+    }
+
+    /**
+     * Performs a trinode restructuring of the given position with its parent and
+     * grandparent, and returns the position that becomes the root of the
+     * restructured subtree.
+     * (page 11.2)
+     *
+     * @param x The grandchild position of the trinode
+     * @return The new root of the restructured subtree
+     */
+    protected Position<Entry<K, V>> restructure(Position<Entry<K, V>> x) {
+        Position<Entry<K, V>> y = parent(x);
+        Position<Entry<K, V>> z = parent(y);
+        if ((x == right(y)) == (y == right(z))) { // matching alignments
+            rotate(y); // single rotation (of y)
+            return y; // y is new subtree root
+        } else { // opposite alignments
+            rotate(x); // double rotation (of x)
+            rotate(x);
+            return x; // x is new subtree root
         }
-        return position; // return internal node where key is found
     }
 
     /**
      * Returns a value whose associated key is k.
      */
     public V get(K key) throws IllegalArgumentException {
-        checkKey(key); // may throw an InvalidKeyException
-        Position<Entry<K, V>> currentPos = treeSearch(key, root());
-        actionPos = currentPos; // node where the search ended
+        TreeMapMetrics metrics = this.metrics; // null when disabled
+        long start = metrics == null ? 0 : System.nanoTime();
+        try {
+            checkKey(key); // may throw an InvalidKeyException
+            Position<Entry<K, V>> currentPos = treeSearch(key, root()); // node where the key was found
+            if (currentPos == null) {
+                return null;
+            }
+            rebalanceAccess(currentPos);
 
-        return isInternal(currentPos) ? value(currentPos) : null;
+            return value(currentPos);
+        } finally {
+            if (metrics != null) {
+                metrics.recordGet(System.nanoTime() - start);
+            }
+        }
     }
 
     /**
@@ -160,16 +378,131 @@ public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
      * the old value whose associated key is k if it exists.
      */
     public V put(K k, V x) throws IllegalArgumentException {
-        checkKey(k); // may throw an IllegalArgumentException
-        Position<Entry<K, V>> insPos = treeSearch(k, root());
-        BSTEntry<K, V> e = new BSTEntry<>(k, x, insPos);
-        actionPos = insPos; // node where the entry is being inserted
-        if (isExternal(insPos)) { // we need a new node, key is new
-            insertAtExternal(insPos, e).getValue();
+        TreeMapMetrics metrics = this.metrics; // null when disabled
+        long start = metrics == null ? 0 : System.nanoTime();
+        int comparisons = 0;
+        try {
+            checkKey(k); // may throw an IllegalArgumentException
+            Node<Entry<K, V>> parent = null; // last node of the search path
+            Node<Entry<K, V>> node = root;
+            int comp = 0;
+            while (node != null) {
+                comp = comparator.compare(k, node.getElement().getKey());
+                comparisons++;
+                if (comp == 0) {
+                    actionPos = node; // key already exists
+                    V old = replaceEntry(node, new BSTEntry<>(k, x, node));
+                    rebalanceAccess(node);
+                    return old;
+                }
+                parent = node;
+                node = comp < 0 ? node.getLeft() : node.getRight();
+            }
+            actionPos = insertLeaf(parent, new BSTEntry<>(k, x, null), comp < 0); // key is new
+            rebalanceInsert(actionPos); // rebalance starting at the new entry
+
             return null;
+        } finally {
+            if (metrics != null) {
+                metrics.recordSearch(comparisons);
+                metrics.recordPut(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Builds a height-balanced BinarySearchTreeMap, using the natural order of
+     * the keys, from entries sorted by strictly increasing key.
+     *
+     * @param entries The entries, sorted by strictly increasing key
+     * @return The map holding the entries
+     * @throws IllegalArgumentException if a key is null or the keys are not
+     *                                  strictly increasing
+     */
+    public static <K, V> BinarySearchTreeMap<K, V> fromSorted(Iterator<? extends Entry<K, V>> entries)
+            throws IllegalArgumentException {
+        return fromSorted(entries, new BinarySearchTreeMap<>());
+    }
+
+    /**
+     * Fills an empty map, such as an AVLTreeMap or an RBTreeMap, from entries
+     * sorted by strictly increasing key under the comparator of the map. The
+     * entries are validated as they are collected, then the tree is linked
+     * directly in O(n) time by loadSorted. On invalid input the map is left
+     * empty.
+     *
+     * @param entries The entries, sorted by strictly increasing key
+     * @param map     The empty map to fill
+     * @return The given map holding the entries
+     * @throws IllegalArgumentException if a key is null or the keys are not
+     *                                  strictly increasing
+     * @throws IllegalStateException    if the map is not empty
+     */
+    public static <K, V, M extends BinarySearchTreeMap<K, V>> M fromSorted(Iterator<? extends Entry<K, V>> entries,
+            M map) throws IllegalArgumentException, IllegalStateException {
+        if (!map.isEmpty())
+            throw new IllegalStateException("map is not empty");
+        ArrayList<Entry<K, V>> sorted = new ArrayList<>();
+        K previous = null;
+        while (entries.hasNext()) {
+            Entry<K, V> entry = entries.next();
+            map.checkKey(entry.getKey());
+            if (previous != null && map.comparator.compare(previous, entry.getKey()) >= 0)
+                throw new IllegalArgumentException("keys not strictly increasing at " + entry.getKey());
+            previous = entry.getKey();
+            sorted.add(entry);
         }
+        map.loadSorted(sorted.iterator(), sorted.size());
+
+        return map;
+    }
 
-        return replaceEntry(insPos, e); // key already exists
+    /**
+     * Fills an empty map with the given number of entries taken in order from an
+     * iterator over entries sorted by strictly increasing key. The tree is built
+     * in O(n) time, without any comparison or rotation, by linking the middle
+     * entry of every range of the sequence above its two halves, so it has the
+     * minimum floor(log2 n) + 1 levels. The balancedAux hook then sets the
+     * auxiliary value of every node.
+     *
+     * @param entries The entries, sorted by strictly increasing key
+     * @param n       The number of entries to take from the iterator
+     * @throws IllegalStateException    if the map is not empty
+     * @throws IllegalArgumentException if n is negative
+     */
+    protected void loadSorted(Iterator<? extends Entry<K, V>> entries, int n)
+            throws IllegalStateException, IllegalArgumentException {
+        if (!isEmpty())
+            throw new IllegalStateException("map is not empty");
+        if (n < 0)
+            throw new IllegalArgumentException("invalid count");
+        int maxDepth = 31 - Integer.numberOfLeadingZeros(Math.max(n, 1)); // floor(log2 n)
+        totalDepth = 0; // summed by buildBalanced
+        root = buildBalanced(entries, n, null, 0, maxDepth);
+        size = n;
+        modCount++;
+    }
+
+    /**
+     * Builds the subtree of the next n entries of the iterator, in order, below
+     * the given parent. The recursion depth is the tree height.
+     */
+    private Node<Entry<K, V>> buildBalanced(Iterator<? extends Entry<K, V>> entries, int n,
+            Node<Entry<K, V>> parent, int depth, int maxDepth) {
+        if (n == 0) {
+            return null;
+        }
+        int leftCount = (n - 1) / 2; // the right half takes the extra entry
+        Node<Entry<K, V>> node = createNode(null, parent, null, null);
+        node.setLeft(buildBalanced(entries, leftCount, node, depth + 1, maxDepth));
+        Entry<K, V> source = entries.next();
+        node.setElement(new BSTEntry<>(source.getKey(), source.getValue(), node));
+        node.setRight(buildBalanced(entries, n - 1 - leftCount, node, depth + 1, maxDepth));
+        recompute(node);
+        totalDepth += depth;
+        setAux(node, balancedAux(32 - Integer.numberOfLeadingZeros(n), depth, maxDepth));
+
+        return node;
     }
 
     /**
@@ -177,76 +510,375 @@ public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
      * the removed entry.
      */
     public V remove(K k) throws IllegalArgumentException {
-        checkKey(k); // may throw an IllegalArgumentException
-        Position<Entry<K, V>> remPos = treeSearch(k, root());
-        if (isExternal(remPos)) {
-            return null; // key not found
+        TreeMapMetrics metrics = this.metrics; // null when disabled
+        long start = metrics == null ? 0 : System.nanoTime();
+        try {
+            checkKey(k); // may throw an IllegalArgumentException
+            Position<Entry<K, V>> remPos = treeSearch(k, root());
+            if (remPos == null) {
+                return null; // key not found
+            }
+            Entry<K, V> toReturn = entry(remPos); // old entry
+            if (left(remPos) != null && right(remPos) != null) { // entry is at a node with two children
+                Position<Entry<K, V>> swapPos = remPos; // find node for moving entry
+                remPos = left(swapPos);
+                while (right(remPos) != null) {
+                    remPos = right(remPos);
+                }
+                replaceEntry(swapPos, remPos.getElement()); // predecessor moves up
+            }
+            Node<Entry<K, V>> removed = validate(remPos);
+            Position<Entry<K, V>> child = removed.getLeft() != null ? removed.getLeft() : removed.getRight();
+            int removedAux = getAux(removed);
+            actionPos = removed.getParent(); // parent of the node to be removed
+            removeNode(removed);
+            rebalanceDelete(actionPos, child, removedAux); // rebalance starting at the parent
+
+            return toReturn.getValue();
+        } finally {
+            if (metrics != null) {
+                metrics.recordRemove(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns the leftmost node of the subtree rooted at a given node, or null
+     * if the subtree is empty.
+     */
+    protected Node<Entry<K, V>> firstNode(Node<Entry<K, V>> node) {
+        if (node == null) { // the subtree is empty
+            return null;
+        }
+        while (node.getLeft() != null) {
+            node = node.getLeft();
+        }
+        return node;
+    }
+
+    /**
+     * Returns the rightmost node of the subtree rooted at a given node, or null
+     * if the subtree is empty.
+     */
+    protected Node<Entry<K, V>> lastNode(Node<Entry<K, V>> node) {
+        if (node == null) { // the subtree is empty
+            return null;
         }
-        Entry<K, V> toReturn = entry(remPos); // old entry
-        if (isExternal(left(remPos))) {
-            remPos = left(remPos); // left case
-        } else if (isExternal(right(remPos))) {
-            remPos = right(remPos); // right case
-        } else { // entry is at a node with internal children
-            Position<Entry<K, V>> swapPos = remPos; // find node for moving entry
-            remPos = left(swapPos);
-            do {
-                remPos = right(remPos);
-            } while (isInternal(remPos));
-            replaceEntry(swapPos, parent(remPos).getElement());
+        while (node.getRight() != null) {
+            node = node.getRight();
         }
-        actionPos = sibling(remPos); // sibling of the leaf to be removed
-        removeExternal(remPos);
+        return node;
+    }
 
-        return toReturn.getValue();
+    /**
+     * Returns the node holding the least key greater than a given key (or equal
+     * to it when inclusive is true), or null if there is none. Only the path
+     * from the root down to a leaf is visited.
+     */
+    protected Node<Entry<K, V>> ceilingNode(K key, boolean inclusive) {
+        Node<Entry<K, V>> node = root;
+        Node<Entry<K, V>> best = null; // least key found so far above the given key
+        while (node != null) {
+            int comp = comparator.compare(key, node.getElement().getKey());
+            if (comp < 0 || (comp == 0 && inclusive)) {
+                best = node;
+                if (comp == 0) {
+                    return best; // exact match
+                }
+                node = node.getLeft(); // a closer key may be in the left subtree
+            } else {
+                node = node.getRight();
+            }
+        }
+        return best;
     }
 
     /**
-     * Returns an iterable collection of the keys of all entries stored in the
-     * map.
+     * Returns the node holding the greatest key less than a given key (or equal
+     * to it when inclusive is true), or null if there is none. Only the path
+     * from the root down to a leaf is visited.
      */
-    public Iterable<K> keySet() {
-        List<K> keyList = new ArrayList<>(); // create an arrayList
-        if (root() == null) { // check if the tree is not empty
-            return java.util.Collections.emptySet();
+    protected Node<Entry<K, V>> floorNode(K key, boolean inclusive) {
+        Node<Entry<K, V>> node = root;
+        Node<Entry<K, V>> best = null; // greatest key found so far below the given key
+        while (node != null) {
+            int comp = comparator.compare(key, node.getElement().getKey());
+            if (comp > 0 || (comp == 0 && inclusive)) {
+                best = node;
+                if (comp == 0) {
+                    return best; // exact match
+                }
+                node = node.getRight(); // a closer key may be in the right subtree
+            } else {
+                node = node.getLeft();
+            }
         }
-        for (Entry<K, V> entry : entrySet()) { // loop over the entries in the tree
-            keyList.add(entry.getKey()); // get key of element and add it to the list
+        return best;
+    }
+
+    /**
+     * Returns the entry holding a given key, or the closest entry above it
+     * (direction > 0) or below it (direction < 0), the key itself counting
+     * when inclusive is true; a null key stands for the first entry (direction
+     * > 0) or the last one (direction < 0). Nothing is recorded or
+     * restructured, so a reader holding no lock can call it while a writer
+     * relinks the nodes, as under an optimistic read of ConcurrentTreeMap. Such
+     * a reader must discard the result if a writer intervened, which the walk
+     * does not detect; it only makes sure to end, giving up at a removed node
+     * or after more steps than the tree has nodes.
+     *
+     * @param key       The key searched, or null for the first or last entry
+     * @param direction 0 for the key only, positive for a ceiling, negative for
+     *                  a floor
+     * @param inclusive Whether an entry holding the key itself is returned
+     * @return The entry found, or null if there is none
+     */
+    Entry<K, V> findEntry(K key, int direction, boolean inclusive) {
+        Node<Entry<K, V>> node = root;
+        Node<Entry<K, V>> best = null; // closest key found so far in the direction
+        for (int steps = size(); node != null; steps--) {
+            Entry<K, V> entry = node.getElement();
+            if (entry == null || steps < 0) {
+                return null; // a removed node or a cycle, both seen only during a write
+            }
+            int comp = key == null ? -direction : comparator.compare(key, entry.getKey());
+            if (comp == 0 && inclusive) {
+                return entry; // exact match
+            }
+            if (direction > 0 ? comp < 0 : direction < 0 && comp > 0) {
+                best = node;
+            }
+            node = comp < 0 || (comp == 0 && direction < 0) ? node.getLeft() : node.getRight();
         }
-        return keyList;
+        return entryOrNull(best);
+    }
 
+    /**
+     * Returns the entry stored at a given node, or null if there is no node.
+     */
+    private Entry<K, V> entryOrNull(Node<Entry<K, V>> node) {
+        return node == null ? null : node.getElement();
     }
 
     /**
-     * Returns an iterable collection of the values of all entries stored in
-     * the map.
+     * Returns the node holding the next entry in key order after a given node,
+     * or null if it holds the last entry. Only parent links are followed, so no
+     * extra memory is needed.
      */
-    public Iterable<V> values() {
-        List<V> valueList = new ArrayList<>(); // create an arrayList
-        if (root() == null) { // check if the tree is not empty
-            return java.util.Collections.emptySet();
+    protected Node<Entry<K, V>> successor(Node<Entry<K, V>> node) {
+        Node<Entry<K, V>> next = firstNode(node.getRight()); // smallest entry of the right subtree
+        if (next != null) {
+            return next;
         }
-        for (Entry<K, V> entry : entrySet()) { // loop over the entries in the tree
-            valueList.add(entry.getValue()); // get value of element and add it to the list
+        Node<Entry<K, V>> parent = node.getParent();
+        while (parent != null && node == parent.getRight()) { // climb while coming from the right
+            node = parent;
+            parent = node.getParent();
         }
-        return valueList;
+        return parent;
+    }
+
+    /**
+     * Returns an iterable collection of the keys of all entries stored in the
+     * map. The collection is a view streamed from the tree in key order.
+     */
+    public Iterable<K> keySet() {
+        return () -> new KeyIterator();
+    }
+
+    /**
+     * Returns an iterable collection of the values of all entries stored in
+     * the map. The collection is a view streamed from the tree in key order.
+     */
+    public Iterable<V> values() {
+        return () -> new ValueIterator();
     }
 
     /**
      * Returns an iterable collection of all entries stored in the map. The
-     * sentinels are excluded.
+     * collection is a view streamed from the tree in key order, and its
+     * spliterator splits on subtrees, so the entries can be consumed by a
+     * parallel stream.
      */
     public Iterable<Entry<K, V>> entrySet() {
-        List<Entry<K, V>> entryList = new ArrayList<>(size); // create an arrayList
-        if (root() == null) { // check if the tree is not empty
-            return java.util.Collections.emptySet();
+        return new Iterable<Entry<K, V>>() {
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public Spliterator<Entry<K, V>> spliterator() {
+                return BinarySearchTreeMap.this.spliterator();
+            }
+        };
+    }
+
+    /**
+     * Returns a spliterator over the entries in key order. It is SIZED,
+     * SUBSIZED, SORTED and ORDERED: a split hands out the left subtree of the
+     * next node as the prefix, so both halves know their exact size from the
+     * entry counts of the nodes, and balanced trees split evenly.
+     */
+    public Spliterator<Entry<K, V>> spliterator() {
+        return new SubtreeSpliterator(null, root);
+    }
+
+    /**
+     * Reduces all the entries of the map in parallel on the common fork-join
+     * pool. The entries are split by subtrees until a part holds at most
+     * SPLIT_THRESHOLD entries, each part is reduced in key order, and the
+     * results of the parts are combined in key order, so the combiner need
+     * only be associative. The map must not be modified during the reduction.
+     *
+     * @param identity The result for no entries, which the combiner leaves
+     *                 unchanged
+     * @param mapper   The result of a single entry
+     * @param combiner The associative function combining the results of two
+     *                 consecutive runs of entries
+     * @return The result of all the entries
+     */
+    public <R> R reduce(R identity, Function<? super Entry<K, V>, ? extends R> mapper, BinaryOperator<R> combiner) {
+        return ForkJoinPool.commonPool().invoke(new SubtreeReducer<>(spliterator(), identity, mapper, combiner));
+    }
+
+    /**
+     * Returns the entry having the least key (or null if map is empty).
+     */
+    public Entry<K, V> firstEntry() {
+        return entryOrNull(firstNode(root));
+    }
+
+    /**
+     * Returns the entry having the greatest key (or null if map is empty).
+     */
+    public Entry<K, V> lastEntry() {
+        return entryOrNull(lastNode(root));
+    }
+
+    /**
+     * Returns the entry with least key greater than or equal to given key (or
+     * null if no such key exists).
+     */
+    public Entry<K, V> ceilingEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return entryOrNull(ceilingNode(key, true));
+    }
+
+    /**
+     * Returns the entry with greatest key less than or equal to given key (or
+     * null if no such key exists).
+     */
+    public Entry<K, V> floorEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return entryOrNull(floorNode(key, true));
+    }
+
+    /**
+     * Returns the entry with greatest key strictly less than given key (or null
+     * if no such key exists).
+     */
+    public Entry<K, V> lowerEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return entryOrNull(floorNode(key, false));
+    }
+
+    /**
+     * Returns the entry with least key strictly greater than given key (or null
+     * if no such key exists).
+     */
+    public Entry<K, V> higherEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return entryOrNull(ceilingNode(key, false));
+    }
+
+    /**
+     * Returns an iterable of the entries with keys in the range from fromKey
+     * inclusive to toKey exclusive. The range is a view that starts at the
+     * ceiling of fromKey and walks successors until toKey is reached, so
+     * subtrees outside the range are never visited and the cost is O(h + k) for
+     * k entries in range.
+     */
+    public Iterable<Entry<K, V>> subMap(K fromKey, K toKey) throws IllegalArgumentException {
+        checkKey(fromKey); // may throw an IllegalArgumentException
+        checkKey(toKey);
+        return () -> new EntryIterator(ceilingNode(fromKey, true), toKey, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the node holding the entry at a given index in key
+     * order, descending by the entry counts of the left subtrees.
+     */
+    protected Node<Entry<K, V>> selectNode(int index) {
+        Node<Entry<K, V>> node = root;
+        while (node != null) {
+            int leftCount = count(node.getLeft());
+            if (index < leftCount) {
+                node = node.getLeft();
+            } else if (index > leftCount) {
+                index -= leftCount + 1; // skip the left subtree and this node
+                node = node.getRight();
+            } else {
+                return node;
+            }
         }
-        for (Entry<K, V> entry : inorderElements()) { // loop over the entries in the tree in order
-            if (entry != null) // check that the entry is a valid entry
-                entryList.add(entry); // add it to the list
+        return null; // index past the last entry
+    }
+
+    /**
+     * Returns the entry at a given index in key order, counting from 0, in
+     * O(h) time.
+     *
+     * @param index The index of the entry
+     * @return The entry at the index
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public Entry<K, V> select(int index) throws IllegalArgumentException {
+        if (index < 0 || index >= count(root)) {
+            throw new IllegalArgumentException("invalid index");
+        }
+        return selectNode(index).getElement();
+    }
+
+    /**
+     * Returns the number of keys strictly less than a given key, which is the
+     * index the key has or would have in key order, in O(h) time.
+     *
+     * @param key The key to rank
+     * @return The number of keys less than the key
+     */
+    public int rank(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        int rank = 0;
+        Node<Entry<K, V>> node = root;
+        while (node != null) {
+            int comp = comparator.compare(key, node.getElement().getKey());
+            if (comp > 0) {
+                rank += count(node.getLeft()) + 1; // the left subtree and this node are smaller
+                node = node.getRight();
+            } else {
+                if (comp == 0) {
+                    return rank + count(node.getLeft());
+                }
+                node = node.getLeft();
+            }
         }
-        return entryList;
+        return rank;
+    }
 
+    /**
+     * Returns an iterable of at most limit entries in key order, starting with
+     * the entry at a given offset. The first entry is found with select, so a
+     * page costs O(h + limit) whatever its offset.
+     *
+     * @param offset The index of the first entry of the page
+     * @param limit  The maximum number of entries in the page
+     * @return The entries of the page
+     */
+    public Iterable<Entry<K, V>> page(int offset, int limit) throws IllegalArgumentException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("invalid page");
+        }
+        return () -> new EntryIterator(selectNode(offset), null, limit);
     }
 
     /**
@@ -266,6 +898,291 @@ public class BinarySearchTreeMap<K, V> extends LinkedBinaryTree<Entry<K, V>>
                                                                                                          // arrayList
     }
 
+    /**
+     * Lazy iterator over the entries in key order. It holds only the next node
+     * and moves to its successor through the parent links. It fails fast if the
+     * map is structurally modified, by an insertion, a removal or a rotation,
+     * during the iteration; replacing the value of a key is not a structural
+     * modification.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        /**
+         * modification count of the map when the iterator was created
+         */
+        private final int expectedModCount = modCount;
+
+        /**
+         * node holding the next entry to return
+         */
+        private Node<Entry<K, V>> next;
+
+        /**
+         * exclusive upper bound of the keys to return, or null for no bound
+         */
+        private final K toKey;
+
+        /**
+         * number of entries left to return
+         */
+        private int remaining;
+
+        /**
+         * constructor to iterate over all entries of the map
+         */
+        EntryIterator() {
+            this(firstNode(root), null, Integer.MAX_VALUE);
+        }
+
+        /**
+         * constructor to iterate from a given node up to a given key and at most
+         * a given number of entries
+         */
+        EntryIterator(Node<Entry<K, V>> start, K toKey, int limit) {
+            this.toKey = toKey;
+            remaining = limit;
+            next = bounded(start);
+        }
+
+        /**
+         * returns the given node, or null if it lies past the upper bound
+         */
+        private Node<Entry<K, V>> bounded(Node<Entry<K, V>> node) {
+            if (remaining-- <= 0) {
+                return null; // limit reached
+            }
+            if (node != null && toKey != null && comparator.compare(node.getElement().getKey(), toKey) >= 0) {
+                return null;
+            }
+            return node;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException("no more entries");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<Entry<K, V>> current = next;
+            next = bounded(successor(current));
+            return current.getElement();
+        }
+    }
+
+    /**
+     * Spliterator over the entries of a head node, if any, followed by the
+     * entries of a subtree, which are the next ones in key order. Splitting
+     * returns the head and the left subtree of the subtree root as the prefix,
+     * and keeps the root as the head of its right subtree. Once traversal has
+     * started, the spliterator follows the successors and no longer splits.
+     */
+    private class SubtreeSpliterator implements Spliterator<Entry<K, V>> {
+        /**
+         * node holding the first entry, or null
+         */
+        private Node<Entry<K, V>> head;
+
+        /**
+         * subtree holding the entries following the head, or null
+         */
+        private Node<Entry<K, V>> sub;
+
+        /**
+         * node holding the next entry once the traversal started
+         */
+        private Node<Entry<K, V>> next;
+
+        /**
+         * number of entries left, or -1 before the traversal started
+         */
+        private int remaining = -1;
+
+        /**
+         * modification count of the map when the spliterator was created
+         */
+        private final int expectedModCount = modCount;
+
+        SubtreeSpliterator(Node<Entry<K, V>> head, Node<Entry<K, V>> sub) {
+            this.head = head;
+            this.sub = sub;
+        }
+
+        public Spliterator<Entry<K, V>> trySplit() {
+            if (remaining >= 0) {
+                return null; // already traversing
+            }
+            while (head == null && sub != null && sub.getLeft() == null) {
+                head = sub; // same entries, with a subtree that has a left part
+                sub = sub.getRight();
+            }
+            if (sub == null) {
+                return null;
+            }
+            Spliterator<Entry<K, V>> prefix = new SubtreeSpliterator(head, sub.getLeft());
+            head = sub;
+            sub = sub.getRight();
+            return prefix;
+        }
+
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            if (remaining < 0) {
+                start();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            Node<Entry<K, V>> current = next;
+            next = --remaining > 0 ? successor(current) : null;
+            action.accept(current.getElement());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<K, V>> action) {
+            if (remaining < 0) {
+                start();
+            }
+            for (; remaining > 0; remaining--) {
+                if (modCount != expectedModCount) { // before following a node the action may have removed
+                    throw new ConcurrentModificationException();
+                }
+                Node<Entry<K, V>> current = next;
+                next = remaining > 1 ? successor(current) : null;
+                action.accept(current.getElement());
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /**
+         * Starts the traversal at the head or the first node of the subtree.
+         */
+        private void start() {
+            remaining = (int) estimateSize();
+            next = head != null ? head : firstNode(sub);
+        }
+
+        public long estimateSize() {
+            return remaining >= 0 ? remaining : (head == null ? 0 : 1) + count(sub);
+        }
+
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | DISTINCT | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Entry<K, V>> getComparator() {
+            return (a, b) -> comparator.compare(a.getKey(), b.getKey());
+        }
+    }
+
+    /**
+     * Fork-join task reducing the entries of a spliterator: large parts are
+     * split in two, the prefix being forked while the suffix is reduced by the
+     * current thread.
+     */
+    private static final class SubtreeReducer<T, R> extends RecursiveTask<R> implements Consumer<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Spliterator<T> entries;
+        private final transient R identity;
+        private final transient Function<? super T, ? extends R> mapper;
+        private final transient BinaryOperator<R> combiner;
+        private transient R result; // result of the entries reduced so far
+
+        SubtreeReducer(Spliterator<T> entries, R identity, Function<? super T, ? extends R> mapper,
+                BinaryOperator<R> combiner) {
+            this.entries = entries;
+            this.identity = identity;
+            this.mapper = mapper;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            Spliterator<T> prefix;
+            if (entries.estimateSize() > SPLIT_THRESHOLD && (prefix = entries.trySplit()) != null) {
+                SubtreeReducer<T, R> first = new SubtreeReducer<>(prefix, identity, mapper, combiner);
+                first.fork();
+                R second = new SubtreeReducer<>(entries, identity, mapper, combiner).compute();
+                return combiner.apply(first.join(), second);
+            }
+            result = identity;
+            entries.forEachRemaining(this);
+            return result;
+        }
+
+        public void accept(T entry) {
+            result = combiner.apply(result, mapper.apply(entry));
+        }
+    }
+
+    /**
+     * Lazy iterator over the keys in key order.
+     */
+    private class KeyIterator implements Iterator<K> {
+        private final Iterator<Entry<K, V>> entries = new EntryIterator();
+
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        public K next() {
+            return entries.next().getKey();
+        }
+    }
+
+    /**
+     * Lazy iterator over the values in key order.
+     */
+    private class ValueIterator implements Iterator<V> {
+        private final Iterator<Entry<K, V>> entries = new EntryIterator();
+
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        public V next() {
+            return entries.next().getValue();
+        }
+    }
+
+    /**
+     * Nested class for tree nodes carrying an auxiliary balance value, such as
+     * the color of a red-black node. The number of
+     * entries in their subtree, used by select, rank and page, is the size kept
+     * by every Node.
+     */
+    protected static class BSTNode<E> extends Node<E> {
+        /**
+         * auxiliary value used by the balancing strategy
+         */
+        private int aux = 0;
+
+        /**
+         * constructor to create a node with the given element and neighbors
+         */
+        BSTNode(E e, Node<E> parent, Node<E> leftChild, Node<E> rightChild) {
+            super(e, parent, leftChild, rightChild);
+        }
+
+        public int getAux() {
+            return aux;
+        }
+
+        public void setAux(int value) {
+            aux = value;
+        }
+    }
+
     /**
      * Nested class for location-aware binary search tree entries
      */
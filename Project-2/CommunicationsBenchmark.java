@@ -0,0 +1,150 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Benchmark driver comparing ContactsApp.parseCommunications with the former
+ * split-based parser, kept here as legacyParseCommunications.
+ * <p>
+ * Both parsers first parse every generated record once and must agree on the
+ * result. Then, for each parser, it reports the median time per record over
+ * several measured rounds after warm-up rounds, and the bytes allocated per
+ * record as counted by the JVM for the running thread. Usage:
+ *
+ * <pre>
+ * java CommunicationsBenchmark [records]
+ * </pre>
+ *
+ * The default is 100000 records of one to four options each.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class CommunicationsBenchmark {
+
+    /**
+     * Number of rounds run before measuring.
+     */
+    private static final int WARMUP_ROUNDS = 5;
+
+    /**
+     * Number of measured rounds.
+     */
+    private static final int MEASURED_ROUNDS = 9;
+
+    /**
+     * Sink for the benchmark results so that the JIT cannot drop the work.
+     */
+    static volatile long sink;
+
+    /**
+     * The parser of ContactsApp before it was rewritten as a single-pass scanner,
+     * splitting the string at the commas and every token at the colons.
+     */
+    static HashMap<ContactsApp.Communications, String> legacyParseCommunications(String platforms)
+            throws IllegalArgumentException {
+        HashMap<ContactsApp.Communications, String> communications = new HashMap<>();
+        for (String platform : platforms.split(",")) {
+            String[] platformKeyValue = platform.split(":");
+            if (platformKeyValue.length == 2) {
+                String platformLetter = "" + platformKeyValue[0].trim().toUpperCase().charAt(0);
+                ContactsApp.Communications com = Arrays.stream(ContactsApp.Communications.values())
+                        .filter(communication -> communication.name().startsWith(platformLetter)).findFirst()
+                        .orElseThrow(IllegalArgumentException::new);
+                communications.put(com, platformKeyValue[1].trim());
+            }
+        }
+        return communications;
+    }
+
+    /**
+     * Generates records like the ones typed at the add contact prompt.
+     */
+    static String[] records(int count, Random random) {
+        String[] keys = { "email", "e", "mobile", "m", "github", "instagram", "linkedin", "li", "web", "w",
+                "snapchat", "snap" };
+        String[] records = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder record = new StringBuilder();
+            int options = 1 + random.nextInt(4);
+            for (int j = 0; j < options; j++) {
+                record.append(j == 0 ? "" : ", ").append(keys[random.nextInt(keys.length)]).append(": ")
+                        .append("contact").append(random.nextInt(1000000));
+                if (random.nextInt(8) == 0) {
+                    record.append(":8080"); // two colons, skipped by both parsers
+                }
+            }
+            records[i] = record.toString();
+        }
+        return records;
+    }
+
+    /**
+     * Parses all the records once and returns the time per record in
+     * nanoseconds.
+     */
+    static double round(Function<String, Object> parser, String[] records) {
+        long sum = 0;
+        long start = System.nanoTime();
+        for (String record : records) {
+            sum += parser.apply(record).hashCode();
+        }
+        double nanos = (System.nanoTime() - start) / (double) records.length;
+        sink += sum;
+        return nanos;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or -1
+     * if the JVM does not count them.
+     */
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the benchmark for the number of records given as argument.
+     *
+     * @param args The number of records; defaults to 100000
+     */
+    public static void main(String... args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : 100000;
+        String[] records = records(count, new Random(42));
+
+        for (String record : records) {
+            if (!ContactDetails.of(legacyParseCommunications(record)).equals(ContactsApp.parseCommunications(record))) {
+                throw new IllegalStateException("the parsers disagree on '" + record + "'");
+            }
+        }
+
+        java.util.Map<String, Function<String, Object>> parsers = new java.util.LinkedHashMap<>();
+        parsers.put("legacy split", CommunicationsBenchmark::legacyParseCommunications);
+        parsers.put("single pass", ContactsApp::parseCommunications);
+
+        System.out.format("%-14s %10s %12s%n", "parser", "ns/record", "bytes/record");
+        for (java.util.Map.Entry<String, Function<String, Object>> parser : parsers.entrySet()) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                round(parser.getValue(), records);
+            }
+            List<Double> samples = new ArrayList<>();
+            long allocated = allocatedBytes();
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                samples.add(round(parser.getValue(), records));
+            }
+            allocated = allocated < 0 ? -1 : (allocatedBytes() - allocated) / ((long) MEASURED_ROUNDS * count);
+            Collections.sort(samples);
+            System.out.format("%-14s %10.1f %12d%n", parser.getKey(), samples.get(samples.size() / 2), allocated);
+        }
+    }
+}
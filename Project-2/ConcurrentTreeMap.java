@@ -0,0 +1,261 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe sorted map guarding a BinarySearchTreeMap with a StampedLock.
+ * Put and remove take the write lock and are serialized. get, size and the
+ * navigation methods first search the tree under an optimistic read, which
+ * writes nothing shared, so readers on different cores do not contend for the
+ * lock word; only when a writer intervened is the search made again under the
+ * read lock. A search seeing links being changed may end early or at a
+ * removed node, but its result is then discarded.
+ * <p>
+ * The wrapped map must not restructure on access (AVLTreeMap, RBTreeMap and
+ * BinarySearchTreeMap do not), and must not be used directly once wrapped.
+ * Since a lazy view cannot hold the lock while the caller iterates, keySet,
+ * values, entrySet and subMap return a copy taken under the read lock.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ConcurrentTreeMap<K, V> implements SortedMap<K, V> {
+
+    /**
+     * The map holding the entries.
+     */
+    private final BinarySearchTreeMap<K, V> map;
+
+    /**
+     * Lock shared by readers and taken exclusively by writers.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Creates a thread-safe map around an empty AVLTreeMap.
+     */
+    public ConcurrentTreeMap() {
+        this(new AVLTreeMap<>());
+    }
+
+    /**
+     * Creates a thread-safe map around the given map.
+     *
+     * @param map The map to guard
+     */
+    public ConcurrentTreeMap(BinarySearchTreeMap<K, V> map) {
+        this.map = map;
+    }
+
+    /**
+     * Returns the number of entries, validated without locking when no writer
+     * intervened.
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = map.size();
+        if (!lock.validate(stamp)) { // a writer intervened, read again under the lock
+            stamp = lock.readLock();
+            try {
+                size = map.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the value of a key, read without locking when no writer
+     * intervened. The get metrics of the map, if enabled, are recorded here,
+     * since the map's own get is not used.
+     */
+    public V get(K key) throws IllegalArgumentException {
+        map.checkKey(key);
+        TreeMapMetrics metrics = map.metrics(); // null when disabled
+        long start = metrics == null ? 0 : System.nanoTime();
+        long stamp = lock.tryOptimisticRead();
+        V value = null;
+        boolean valid = false;
+        if (stamp != 0) {
+            try {
+                Entry<K, V> entry = map.findEntry(key, 0, true);
+                value = entry == null ? null : entry.getValue();
+                valid = lock.validate(stamp);
+            } catch (RuntimeException ex) {
+                // inconsistent links seen during a write
+            }
+        }
+        if (!valid) { // a writer intervened, search again under the lock
+            stamp = lock.readLock();
+            try {
+                Entry<K, V> entry = map.findEntry(key, 0, true);
+                value = entry == null ? null : entry.getValue();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (metrics != null) {
+            metrics.recordGet(System.nanoTime() - start);
+        }
+        return value;
+    }
+
+    public V put(K key, V value) throws IllegalArgumentException {
+        long stamp = lock.writeLock();
+        try {
+            return map.put(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(K key) throws IllegalArgumentException {
+        long stamp = lock.writeLock();
+        try {
+            return map.remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Entry<K, V> firstEntry() {
+        return findEntry(null, 1, false);
+    }
+
+    public Entry<K, V> lastEntry() {
+        return findEntry(null, -1, false);
+    }
+
+    public Entry<K, V> ceilingEntry(K key) throws IllegalArgumentException {
+        map.checkKey(key);
+        return findEntry(key, 1, true);
+    }
+
+    public Entry<K, V> floorEntry(K key) throws IllegalArgumentException {
+        map.checkKey(key);
+        return findEntry(key, -1, true);
+    }
+
+    public Entry<K, V> lowerEntry(K key) throws IllegalArgumentException {
+        map.checkKey(key);
+        return findEntry(key, -1, false);
+    }
+
+    public Entry<K, V> higherEntry(K key) throws IllegalArgumentException {
+        map.checkKey(key);
+        return findEntry(key, 1, false);
+    }
+
+    /**
+     * Searches an entry as BinarySearchTreeMap.findEntry does, without locking
+     * when no writer intervened.
+     */
+    private Entry<K, V> findEntry(K key, int direction, boolean inclusive) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Entry<K, V> entry = map.findEntry(key, direction, inclusive);
+                if (lock.validate(stamp)) {
+                    return entry;
+                }
+            } catch (RuntimeException ex) {
+                // inconsistent links seen during a write
+            }
+        }
+        stamp = lock.readLock(); // a writer intervened, search again under the lock
+        try {
+            return map.findEntry(key, direction, inclusive);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of the entries with keys from fromKey inclusive to toKey
+     * exclusive.
+     */
+    public Iterable<Entry<K, V>> subMap(K fromKey, K toKey) throws IllegalArgumentException {
+        long stamp = lock.readLock();
+        try {
+            return copy(map.subMap(fromKey, toKey));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of the entries of a page in key order.
+     */
+    public Iterable<Entry<K, V>> page(int offset, int limit) throws IllegalArgumentException {
+        long stamp = lock.readLock();
+        try {
+            return copy(map.page(offset, limit));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of the keys in key order.
+     */
+    public Iterable<K> keySet() {
+        long stamp = lock.readLock();
+        try {
+            return copy(map.keySet());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of the values in key order.
+     */
+    public Iterable<V> values() {
+        long stamp = lock.readLock();
+        try {
+            return copy(map.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of the entries in key order.
+     */
+    public Iterable<Entry<K, V>> entrySet() {
+        long stamp = lock.readLock();
+        try {
+            return copy(map.entrySet());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies the elements of a view into a list; the caller holds the lock.
+     */
+    private static <T> List<T> copy(Iterable<T> view) {
+        List<T> list = new ArrayList<>();
+        for (T element : view) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        long stamp = lock.readLock();
+        try {
+            return map.toString();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.Arrays;
+
+/**
+ * The communication options of a contact, stored compactly as a bitmask of
+ * the Communications present and a dense array holding their values in
+ * ordinal order. A contact with two options takes 48 bytes with compressed
+ * references (24 for this object and 24 for its array), against about 88
+ * for an EnumMap and 190 for a HashMap. The strings are not included.
+ * <p>
+ * Instances are immutable; with returns an updated copy. toString lists the
+ * options in ordinal order in the format of an EnumMap, such as
+ * "{EMAIL=me@trinity.com, LINKEDIN=me}", which is what the menu prints.
+ * <p>
+ * Details encoded by a ContactDictionary keep their values in encoded form
+ * and decode them on access, so they read, compare and print like the plain
+ * details they were encoded from.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public final class ContactDetails {
+
+    /**
+     * The contact without any communication option.
+     */
+    public static final ContactDetails EMPTY = new ContactDetails(0, new String[0]);
+
+    private static final ContactsApp.Communications[] OPTIONS = ContactsApp.Communications.values();
+
+    private final int options;     // bit i is set when the option of ordinal i is present
+    private final String[] values; // values of the set bits, in ordinal order
+    private final ContactDictionary dictionary; // decodes the values, null when they are plain
+
+    private ContactDetails(int options, String[] values) {
+        this(options, values, null);
+    }
+
+    private ContactDetails(int options, String[] values, ContactDictionary dictionary) {
+        this.options = options;
+        this.values = values;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the details holding the non-null values of an array indexed by
+     * Communications ordinal.
+     *
+     * @param byOrdinal The values indexed by ordinal, null when absent
+     * @return The compact details
+     * @throws IllegalArgumentException if the array is longer than the number of
+     *                                  options
+     */
+    public static ContactDetails of(String[] byOrdinal) throws IllegalArgumentException {
+        if (byOrdinal.length > OPTIONS.length)
+            throw new IllegalArgumentException("invalid options");
+        int options = 0;
+        for (int i = 0; i < byOrdinal.length; i++) {
+            if (byOrdinal[i] != null)
+                options |= 1 << i;
+        }
+        if (options == 0)
+            return EMPTY;
+        String[] values = new String[Integer.bitCount(options)];
+        for (int bits = options, k = 0; bits != 0; bits &= bits - 1)
+            values[k++] = byOrdinal[Integer.numberOfTrailingZeros(bits)];
+        return new ContactDetails(options, values);
+    }
+
+    /**
+     * Returns the details holding the options of a map.
+     *
+     * @param communications The options and their values
+     * @return The compact details
+     */
+    public static ContactDetails of(java.util.Map<ContactsApp.Communications, String> communications) {
+        String[] byOrdinal = new String[OPTIONS.length];
+        for (java.util.Map.Entry<ContactsApp.Communications, String> option : communications.entrySet())
+            byOrdinal[option.getKey().ordinal()] = option.getValue();
+        return of(byOrdinal);
+    }
+
+    /**
+     * Returns the details of a bitmask and the values of its set bits in
+     * ordinal order, as read from a snapshot. The array is kept, not copied.
+     *
+     * @throws IllegalArgumentException if the mask has unknown bits or does not
+     *                                  match the number of values
+     */
+    static ContactDetails fromMask(int options, String[] values) throws IllegalArgumentException {
+        if (options >>> OPTIONS.length != 0 || Integer.bitCount(options) != values.length)
+            throw new IllegalArgumentException("invalid options " + options);
+        return options == 0 ? EMPTY : new ContactDetails(options, values);
+    }
+
+    /**
+     * Returns details with the options of these details and the given values
+     * encoded by a dictionary, which decodes them on access.
+     */
+    ContactDetails encoded(String[] encodedValues, ContactDictionary dictionary) {
+        return new ContactDetails(options, encodedValues, dictionary);
+    }
+
+    /**
+     * Returns the dictionary decoding the values, or null when they are plain.
+     */
+    ContactDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the bitmask of the options present, bit i for the option of
+     * ordinal i.
+     */
+    public int mask() {
+        return options;
+    }
+
+    /**
+     * Returns the number of options present.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns true when no option is present.
+     */
+    public boolean isEmpty() {
+        return options == 0;
+    }
+
+    /**
+     * Returns true when the given option is present.
+     */
+    public boolean contains(ContactsApp.Communications option) {
+        return (options & 1 << option.ordinal()) != 0;
+    }
+
+    /**
+     * Returns the value of the given option, or null when it is absent.
+     */
+    public String get(ContactsApp.Communications option) {
+        int bit = 1 << option.ordinal();
+        return (options & bit) == 0 ? null : valueAt(Integer.bitCount(options & (bit - 1)));
+    }
+
+    /**
+     * Returns the value of the option at the given index among the options
+     * present, in ordinal order.
+     */
+    public String valueAt(int index) {
+        return dictionary == null ? values[index] : dictionary.decode(values[index]);
+    }
+
+    /**
+     * Returns a copy of the details with the given option set to a value, or
+     * removed when the value is null.
+     */
+    public ContactDetails with(ContactsApp.Communications option, String value) {
+        String[] byOrdinal = new String[OPTIONS.length];
+        for (int bits = options, k = 0; bits != 0; bits &= bits - 1)
+            byOrdinal[Integer.numberOfTrailingZeros(bits)] = valueAt(k++);
+        byOrdinal[option.ordinal()] = value;
+        return of(byOrdinal);
+    }
+
+    /**
+     * Compares the options and the decoded values.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ContactDetails) || options != ((ContactDetails) other).options)
+            return false;
+        ContactDetails details = (ContactDetails) other;
+        if (dictionary == details.dictionary)
+            return Arrays.equals(values, details.values);
+        for (int i = 0; i < values.length; i++) {
+            if (!valueAt(i).equals(details.valueAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = options;
+        for (int i = 0; i < values.length; i++)
+            hash = 31 * hash + valueAt(i).hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int bits = options, k = 0; bits != 0; bits &= bits - 1, k++) {
+            text.append(k == 0 ? "" : ", ").append(OPTIONS[Integer.numberOfTrailingZeros(bits)]).append('=')
+                    .append(valueAt(k));
+        }
+        return text.append('}').toString();
+    }
+}
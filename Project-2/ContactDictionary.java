@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dictionary encoding of contact names and communication values, so that the
+ * strings repeated across a large address book are stored once.
+ * <p>
+ * Name components are interned: every contact named "Smith" or "John" refers
+ * to the same String. Values such as email addresses are split before their
+ * last '@' and the suffix, such as "@gmail.com", is replaced by a two
+ * character code into a table of suffixes, which is stored as the prefix, a
+ * '\0' marker and the code. Values without a suffix worth encoding are stored
+ * as they are; a value that contains '\0' itself is always given a marker,
+ * with the code of the empty suffix, so that decoding is never ambiguous.
+ * <p>
+ * The dictionary only grows: its strings are kept as long as the dictionary
+ * is, which is the lifetime of the map using it. The methods are
+ * synchronized, except decode, which reads suffixes that are never changed
+ * once published.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ContactDictionary {
+
+    /**
+     * Marker placed before the suffix code of an encoded value.
+     */
+    private static final char MARKER = '\0';
+
+    /**
+     * Number of suffix codes, two bytes stored in two Latin-1 chars.
+     */
+    private static final int MAX_SUFFIXES = 1 << 16;
+
+    /**
+     * Shortest suffix encoded, as the marker and code take three chars.
+     */
+    private static final int MIN_SUFFIX = 4;
+
+    private final HashMap<String, String> names = new HashMap<>();          // interned name components
+    private final HashMap<String, Integer> suffixCodes = new HashMap<>();  // code of every suffix
+    private volatile String[] suffixes = new String[16];                  // suffix of every code, read by decode
+    private int suffixCount = 0;                                          // number of codes in use
+
+    /**
+     * Creates an empty dictionary; code 0 is the empty suffix.
+     */
+    public ContactDictionary() {
+        addSuffix("");
+    }
+
+    /**
+     * Returns the shared copy of a name component.
+     */
+    public synchronized String intern(String component) {
+        if (component == null)
+            return null;
+        String shared = names.putIfAbsent(component, component);
+        return shared == null ? component : shared;
+    }
+
+    /**
+     * Splits a "last, first" name and interns its components.
+     */
+    public ContactName name(String name) {
+        ContactName split = ContactName.of(name);
+        return new ContactName(intern(split.last()), intern(split.first()));
+    }
+
+    /**
+     * Returns details holding the values of the given details encoded by this
+     * dictionary. Details already encoded by it are returned as they are.
+     */
+    public ContactDetails encode(ContactDetails details) {
+        if (details.dictionary() == this || details.isEmpty())
+            return details;
+        String[] values = new String[details.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = encode(details.valueAt(i));
+        return details.encoded(values, this);
+    }
+
+    /**
+     * Returns the encoded form of a value.
+     */
+    synchronized String encode(String value) {
+        int at = value.lastIndexOf('@');
+        boolean marked = value.indexOf(MARKER) >= 0;
+        if (at > 0 && value.length() - at >= MIN_SUFFIX) {
+            String suffix = value.substring(at);
+            Integer code = suffixCodes.get(suffix);
+            if (code == null && suffixCount < MAX_SUFFIXES)
+                code = addSuffix(suffix);
+            if (code != null)
+                return encoded(value.substring(0, at), code);
+        }
+        return marked ? encoded(value, 0) : value;
+    }
+
+    /**
+     * Gives the next code to a suffix and publishes it to decode.
+     */
+    private int addSuffix(String suffix) {
+        String[] table = suffixes;
+        if (suffixCount == table.length)
+            table = Arrays.copyOf(table, 2 * table.length);
+        table[suffixCount] = suffix;
+        suffixes = table; // volatile write publishes the new suffix
+        suffixCodes.put(suffix, suffixCount);
+        return suffixCount++;
+    }
+
+    /**
+     * Returns a prefix followed by the marker and the code.
+     */
+    private static String encoded(String prefix, int code) {
+        return new StringBuilder(prefix.length() + 3).append(prefix).append(MARKER).append((char) (code >> 8))
+                .append((char) (code & 0xFF)).toString();
+    }
+
+    /**
+     * Returns the value of an encoded form.
+     */
+    String decode(String value) {
+        int n = value.length();
+        if (n < 3 || value.charAt(n - 3) != MARKER)
+            return value;
+        String suffix = suffixes[value.charAt(n - 2) << 8 | value.charAt(n - 1)];
+        return value.substring(0, n - 3).concat(suffix);
+    }
+
+    /**
+     * Returns the number of distinct name components.
+     */
+    public synchronized int nameCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the number of suffixes, including the empty one.
+     */
+    public synchronized int suffixCount() {
+        return suffixCount;
+    }
+}
@@ -0,0 +1,532 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports contacts from a CSV or vCard file in three stages. The calling
+ * thread streams the file and cuts it into batches of raw records, a pool of
+ * parser threads turns every batch into contacts sorted by name with
+ * duplicates removed, and the calling thread hands the parsed batches, in file
+ * order, to a single ContactWriter. At most two batches per parser are in
+ * flight, so memory use does not grow with the file.
+ * <p>
+ * A CSV file starts with a header naming its columns. The name and the
+ * communication options are recognized from a table of the usual header
+ * names of address book exports, such as "Last Name", "Given Name",
+ * "E-mail Address", "Mobile Phone" or "Web Page". A one-word header that is
+ * not in the table is matched by its first letter, as in the add contact
+ * prompt ("Snap" for SNAPCHAT). Other columns, such as "Middle Name", are
+ * ignored.
+ * Fields may be double-quoted to hold commas, quotes ("") or line breaks. A
+ * vCard file holds BEGIN:VCARD ... END:VCARD blocks whose N property gives the
+ * name and whose EMAIL, TEL, URL and X-SOCIALPROFILE properties give the
+ * communication options. A record without a last or first name is rejected.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ContactImporter {
+
+    /**
+     * Number of raw records parsed together.
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Column kinds of the last and first name, apart from the ordinals of the
+     * communication options, and of an ignored column.
+     */
+    private static final int LAST_NAME = -3;
+    private static final int FIRST_NAME = -2;
+    private static final int IGNORED = -1;
+
+    /**
+     * Receives the imported contacts, one batch after the other, on the thread
+     * calling importFile.
+     */
+    public interface ContactWriter {
+        /**
+         * Adds or updates a contact.
+         */
+        void put(String name, ContactDetails communications) throws IOException;
+
+        /**
+         * Called after the last contact of every batch.
+         */
+        void endBatch() throws IOException;
+    }
+
+    /**
+     * The counts of an import.
+     */
+    public static class Result {
+        public final long records;    // raw records read
+        public final long imported;   // contacts handed to the writer
+        public final long rejected;   // records without a valid name
+        public final long duplicates; // records replaced by a later record of the same batch
+        public final long nanos;      // elapsed time
+
+        Result(long records, long imported, long rejected, long duplicates, long nanos) {
+            this.records = records;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.duplicates = duplicates;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the number of records imported per second.
+         */
+        public double recordsPerSecond() {
+            return nanos == 0 ? 0 : records * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records in %.2f s (%.0f records/s): %d imported, %d rejected, %d duplicates",
+                    records, nanos / 1e9, recordsPerSecond(), imported, rejected, duplicates);
+        }
+    }
+
+    private final int parsers;
+
+    /**
+     * Creates an importer parsing with one thread per available processor.
+     */
+    public ContactImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an importer parsing with the given number of threads.
+     *
+     * @param parsers The number of parser threads
+     * @throws IllegalArgumentException if parsers is not positive
+     */
+    public ContactImporter(int parsers) {
+        if (parsers < 1)
+            throw new IllegalArgumentException("invalid parser count");
+        this.parsers = parsers;
+    }
+
+    /**
+     * Imports the contacts of a CSV or vCard file, recognized by its first line.
+     *
+     * @param file   The file to import
+     * @param writer The writer receiving the contacts
+     * @return The counts of the import
+     * @throws IOException              if the file cannot be read or the writer fails
+     * @throws IllegalArgumentException if the CSV header has no last or first
+     *                                  column
+     */
+    public Result importFile(Path file, ContactWriter writer) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+        long imported = 0;
+        long rejected = 0;
+        long duplicates = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(parsers);
+        ArrayDeque<Future<Batch>> pending = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RecordReader input = openRecords(reader);
+            List<String> raw;
+            while ((raw = input.nextBatch()) != null || !pending.isEmpty()) {
+                if (raw != null) {
+                    records += raw.size();
+                    List<String> batch = raw;
+                    pending.add(pool.submit(() -> input.parse(batch)));
+                    if (pending.size() < 2 * parsers)
+                        continue; // keep reading while the parsers have work
+                }
+                Batch parsed = await(pending.remove());
+                for (int i = 0; i < parsed.size; i++) {
+                    writer.put(parsed.names[i], parsed.communications.get(i));
+                }
+                writer.endBatch();
+                imported += parsed.size;
+                rejected += parsed.rejected;
+                duplicates += parsed.duplicates;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new Result(records, imported, rejected, duplicates, System.nanoTime() - start);
+    }
+
+    /**
+     * Waits for a parsed batch.
+     */
+    private static Batch await(Future<Batch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("import interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Chooses the reader of the file format from the first non-blank line.
+     */
+    private static RecordReader openRecords(BufferedReader reader) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && line.isBlank());
+        if (line == null)
+            return new CsvReader(reader, new int[0], -1, -1);
+        line = line.replace("\uFEFF", "").strip(); // byte order mark of spreadsheet exports
+        if (line.equalsIgnoreCase("BEGIN:VCARD"))
+            return new VCardReader(reader);
+
+        List<String> header = splitCsv(line);
+        int last = -1;
+        int first = -1;
+        int[] columns = new int[header.size()]; // ordinal of each option column, negative for the others
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = headerColumn(header.get(i).strip().toLowerCase(Locale.ROOT));
+            if (columns[i] == LAST_NAME && last < 0) {
+                last = i;
+            } else if (columns[i] == FIRST_NAME && first < 0) {
+                first = i;
+            }
+        }
+        if (last < 0 || first < 0)
+            throw new IllegalArgumentException("CSV header without last and first name columns: " + line);
+        return new CsvReader(reader, columns, last, first);
+    }
+
+    /**
+     * Returns the kind of a CSV column from its lower case header: LAST_NAME,
+     * FIRST_NAME, the ordinal of a communication option, or IGNORED.
+     */
+    static int headerColumn(String label) {
+        switch (label) {
+            case "last", "last name", "lastname", "surname", "family name":
+                return LAST_NAME;
+            case "first", "first name", "firstname", "given name":
+                return FIRST_NAME;
+            case "email", "e-mail", "email address", "e-mail address", "e-mail 1 - value":
+                return ContactsApp.Communications.EMAIL.ordinal();
+            case "mobile", "mobile phone", "mobile number", "cell", "cell phone", "phone", "phone number", "tel",
+                    "telephone", "phone 1 - value":
+                return ContactsApp.Communications.MOBILE.ordinal();
+            case "web", "website", "web site", "web page", "url", "home page", "homepage", "website 1 - value":
+                return ContactsApp.Communications.WEBSITE.ordinal();
+            case "github":
+                return ContactsApp.Communications.GITHUB.ordinal();
+            case "instagram":
+                return ContactsApp.Communications.INSTAGRAM.ordinal();
+            case "linkedin":
+                return ContactsApp.Communications.LINKEDIN.ordinal();
+            case "snapchat":
+                return ContactsApp.Communications.SNAPCHAT.ordinal();
+            default:
+                break;
+        }
+        if (label.isEmpty() || !label.chars().allMatch(Character::isLetter)) {
+            return IGNORED; // only a single word is matched by its first letter
+        }
+        for (ContactsApp.Communications option : ContactsApp.Communications.values()) {
+            if (option.name().charAt(0) == Character.toUpperCase(label.charAt(0))) {
+                return option.ordinal(); // the first letter is unique
+            }
+        }
+        return IGNORED;
+    }
+
+    /**
+     * Splits a CSV record into its fields, removing the quotes.
+     */
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"'); // escaped quote
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * A batch of contacts parsed from raw records, sorted by name without
+     * duplicates.
+     */
+    private static class Batch {
+        final String[] names;
+        final List<ContactDetails> communications;
+        final int size;
+        final int rejected;
+        final int duplicates;
+
+        /**
+         * Sorts the parsed contacts by name, keeping the last of the records
+         * sharing a name.
+         */
+        Batch(List<String> parsedNames, List<ContactDetails> parsed, int rejected) {
+            Integer[] order = new Integer[parsedNames.size()];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, Comparator.comparing(parsedNames::get)); // stable, equal names stay in file order
+            names = new String[order.length];
+            communications = new ArrayList<>(order.length);
+            int kept = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (i + 1 < order.length && parsedNames.get(order[i]).equals(parsedNames.get(order[i + 1])))
+                    continue; // replaced by the next record
+                names[kept++] = parsedNames.get(order[i]);
+                communications.add(parsed.get(order[i]));
+            }
+            this.size = kept;
+            this.rejected = rejected;
+            this.duplicates = order.length - kept;
+        }
+    }
+
+    /**
+     * Cuts a file into batches of raw records and parses them.
+     */
+    private abstract static class RecordReader {
+        protected final BufferedReader reader;
+
+        RecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the next batch of raw records, or null at the end of the file.
+         * Called by the importing thread only.
+         */
+        abstract List<String> nextBatch() throws IOException;
+
+        /**
+         * Parses a batch of raw records. Called by the parser threads.
+         */
+        Batch parse(List<String> records) {
+            List<String> names = new ArrayList<>(records.size());
+            List<ContactDetails> parsed = new ArrayList<>(records.size());
+            int rejected = 0;
+            String[] communications = new String[ContactsApp.Communications.values().length];
+            for (String record : records) {
+                Arrays.fill(communications, null);
+                String name = parseRecord(record, communications);
+                if (name == null) {
+                    rejected++;
+                } else {
+                    names.add(name);
+                    parsed.add(ContactDetails.of(communications));
+                }
+            }
+            return new Batch(names, parsed, rejected);
+        }
+
+        /**
+         * Parses one raw record into its communication options, indexed by
+         * ordinal, and returns the contact name formatted as 'last, first', or
+         * null if the name is missing.
+         */
+        abstract String parseRecord(String record, String[] communications);
+
+        /**
+         * Formats a contact name as the add contact prompt does.
+         */
+        static String fullName(String last, String first) {
+            last = last == null ? "" : last.strip();
+            first = first == null ? "" : first.strip();
+            return last.isEmpty() || first.isEmpty() ? null : last + ", " + first;
+        }
+    }
+
+    /**
+     * Reads CSV records, joining the lines of a quoted field holding line
+     * breaks.
+     */
+    private static class CsvReader extends RecordReader {
+        private final int[] columns;
+        private final int last;
+        private final int first;
+
+        CsvReader(BufferedReader reader, int[] columns, int last, int first) {
+            super(reader);
+            this.columns = columns;
+            this.last = last;
+            this.first = first;
+        }
+
+        List<String> nextBatch() throws IOException {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while (batch.size() < BATCH_SIZE && (line = reader.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                StringBuilder record = new StringBuilder(line);
+                while (quotes(record) % 2 != 0 && (line = reader.readLine()) != null)
+                    record.append('\n').append(line); // the line break belongs to a quoted field
+                batch.add(record.toString());
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+
+        private static int quotes(CharSequence text) {
+            int count = 0;
+            for (int i = 0; i < text.length(); i++)
+                count += text.charAt(i) == '"' ? 1 : 0;
+            return count;
+        }
+
+        String parseRecord(String record, String[] communications) {
+            List<String> fields = splitCsv(record);
+            if (last >= fields.size() || first >= fields.size())
+                return null;
+            for (int i = 0; i < fields.size() && i < columns.length; i++) {
+                String value = fields.get(i).strip();
+                if (columns[i] >= 0 && !value.isEmpty())
+                    communications[columns[i]] = value;
+            }
+            return fullName(fields.get(last), fields.get(first));
+        }
+    }
+
+    /**
+     * Reads vCard records, unfolding the continuation lines.
+     */
+    private static class VCardReader extends RecordReader {
+        private boolean inCard = true; // the first BEGIN:VCARD was read to recognize the format
+
+        VCardReader(BufferedReader reader) {
+            super(reader);
+        }
+
+        List<String> nextBatch() throws IOException {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            StringBuilder card = new StringBuilder();
+            String line;
+            while (batch.size() < BATCH_SIZE && (line = reader.readLine()) != null) {
+                String property = line.strip();
+                if (property.equalsIgnoreCase("BEGIN:VCARD")) {
+                    inCard = true;
+                    card.setLength(0);
+                } else if (property.equalsIgnoreCase("END:VCARD")) {
+                    if (inCard)
+                        batch.add(card.toString());
+                    inCard = false;
+                } else if (inCard && !line.isEmpty()) {
+                    if (line.charAt(0) == ' ' || line.charAt(0) == '\t')
+                        card.append(line, 1, line.length()); // folded line
+                    else
+                        card.append('\n').append(line);
+                }
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+
+        String parseRecord(String record, String[] communications) {
+            String name = null;
+            for (String line : record.split("\n")) {
+                int colon = line.indexOf(':');
+                if (colon < 0)
+                    continue;
+                String[] property = line.substring(0, colon).split(";");
+                String type = property[0].toUpperCase(Locale.ROOT);
+                int group = type.indexOf('.'); // item1.EMAIL
+                type = type.substring(group + 1);
+                String value = line.substring(colon + 1);
+                switch (type) {
+                    case "N":
+                        String[] parts = value.split(";", -1);
+                        name = fullName(unescape(parts[0]), parts.length > 1 ? unescape(parts[1]) : null);
+                        break;
+                    case "EMAIL":
+                        communications[ContactsApp.Communications.EMAIL.ordinal()] = unescape(value);
+                        break;
+                    case "TEL":
+                        communications[ContactsApp.Communications.MOBILE.ordinal()] = unescape(value);
+                        break;
+                    case "URL":
+                        communications[ContactsApp.Communications.WEBSITE.ordinal()] = unescape(value);
+                        break;
+                    case "X-SOCIALPROFILE":
+                        ContactsApp.Communications option = socialProfile(property);
+                        if (option != null)
+                            communications[option.ordinal()] = unescape(value);
+                        break;
+                    default: // other properties are not kept
+                }
+            }
+            return name;
+        }
+
+        /**
+         * Returns the option named by the TYPE parameter of a social profile.
+         */
+        private static ContactsApp.Communications socialProfile(String[] property) {
+            for (int i = 1; i < property.length; i++) {
+                String parameter = property[i].toUpperCase(Locale.ROOT);
+                if (!parameter.startsWith("TYPE="))
+                    continue;
+                String type = parameter.substring(5);
+                for (ContactsApp.Communications option : ContactsApp.Communications.values()) {
+                    if (option.name().equals(type))
+                        return option;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Removes the backslash escapes of a vCard value.
+         */
+        private static String unescape(String value) {
+            if (value.indexOf('\\') < 0)
+                return value.strip();
+            StringBuilder text = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    c = value.charAt(++i);
+                    text.append(c == 'n' || c == 'N' ? '\n' : c);
+                } else {
+                    text.append(c);
+                }
+            }
+            return text.toString().strip();
+        }
+    }
+}
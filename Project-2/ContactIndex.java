@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Secondary indexes of the contacts by communication value, answering "who
+ * owns this email, phone number or handle?" without scanning all contacts.
+ * <p>
+ * There is one AVL tree per Communications option. Since several contacts may
+ * share a value, such as a family phone number, each tree is keyed by the
+ * value, a '\0' separator and the contact name, and maps that key to the name.
+ * The owners of a value form the key range from value + '\0' to value + '\1',
+ * which subMap visits in O(log n + k) time for k owners, in alphabetical
+ * order. Values are normalized before they are indexed and looked up: they
+ * are trimmed and lower-cased, and phone numbers keep only their digits and
+ * leading '+', so "(805) 899-8899" finds "805-899-8899".
+ * <p>
+ * The index is kept up to date by calling update with the old and new details
+ * of every contact put or removed.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ContactIndex {
+
+    private static final ContactsApp.Communications[] OPTIONS = ContactsApp.Communications.values();
+
+    /**
+     * Separator between the value and the name in the keys.
+     */
+    private static final char SEPARATOR = '\0';
+
+    /**
+     * The index of each option, by ordinal.
+     */
+    private final List<BinarySearchTreeMap<String, String>> indexes = new ArrayList<>(OPTIONS.length);
+
+    /**
+     * Creates empty indexes.
+     */
+    public ContactIndex() {
+        for (int i = 0; i < OPTIONS.length; i++)
+            indexes.add(new AVLTreeMap<>());
+    }
+
+    /**
+     * Creates the indexes of the given contacts.
+     *
+     * @param contacts The contacts to index
+     */
+    public ContactIndex(Iterable<Entry<String, ContactDetails>> contacts) {
+        this();
+        for (Entry<String, ContactDetails> contact : contacts)
+            update(contact.getKey(), null, contact.getValue());
+    }
+
+    /**
+     * Returns the normalized form of a value of an option.
+     */
+    static String normalize(ContactsApp.Communications option, String value) {
+        String trimmed = value.trim().replace(String.valueOf(SEPARATOR), "");
+        if (option == ContactsApp.Communications.MOBILE) {
+            StringBuilder digits = new StringBuilder(trimmed.length());
+            for (int i = 0; i < trimmed.length(); i++) {
+                char c = trimmed.charAt(i);
+                if (Character.isDigit(c) || c == '+' && digits.length() == 0)
+                    digits.append(c);
+            }
+            if (digits.length() > 0)
+                return digits.toString();
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the key of the value of an option of a contact.
+     */
+    private static String key(ContactsApp.Communications option, String value, String name) {
+        return normalize(option, value) + SEPARATOR + name;
+    }
+
+    /**
+     * Replaces the indexed values of a contact.
+     *
+     * @param name     The contact name
+     * @param previous The details the contact had, or null if it was absent
+     * @param current  The details the contact has now, or null if it was removed
+     */
+    public void update(String name, ContactDetails previous, ContactDetails current) {
+        for (int i = 0; i < OPTIONS.length; i++) {
+            String before = previous == null ? null : previous.get(OPTIONS[i]);
+            String after = current == null ? null : current.get(OPTIONS[i]);
+            if (before != null && (after == null || !normalize(OPTIONS[i], before).equals(normalize(OPTIONS[i], after))))
+                indexes.get(i).remove(key(OPTIONS[i], before, name));
+            if (after != null)
+                indexes.get(i).put(key(OPTIONS[i], after, name), name);
+        }
+    }
+
+    /**
+     * Returns the names of the contacts having a given value for an option, in
+     * alphabetical order.
+     *
+     * @param option The communication option
+     * @param value  The value, normalized before the lookup
+     * @return The names of the owners of the value
+     */
+    public List<String> owners(ContactsApp.Communications option, String value) {
+        List<String> names = new ArrayList<>();
+        String normalized = normalize(option, value);
+        if (normalized.isEmpty())
+            return names;
+        for (Entry<String, String> entry : indexes.get(option.ordinal()).subMap(normalized + SEPARATOR,
+                normalized + (char) (SEPARATOR + 1)))
+            names.add(entry.getValue());
+        return names;
+    }
+
+    /**
+     * Returns the number of values indexed for an option.
+     */
+    public int size(ContactsApp.Communications option) {
+        return indexes.get(option.ordinal()).size();
+    }
+
+    /**
+     * Returns the height of the index of an option, kept by the tree and read
+     * in O(1) time, for monitoring its balance.
+     */
+    public int height(ContactsApp.Communications option) {
+        return indexes.get(option.ordinal()).height();
+    }
+}
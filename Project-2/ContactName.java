@@ -0,0 +1,138 @@
+/**
+ * A contact name kept as its last and first name components instead of the
+ * "last, first" string built by the add contact prompt, so that a
+ * ContactDictionary can share the components between contacts.
+ * <p>
+ * A ContactName stands for the text last + ", " + first, or for last alone
+ * when first is null, which is how names without ", " and search bounds such
+ * as a name prefix are kept. Names compare, are equal and hash exactly as that
+ * text does as a String, so a map keyed by ContactName keeps the alphabetical
+ * order of a map keyed by the "last, first" strings.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public final class ContactName implements Comparable<ContactName> {
+
+    /**
+     * Separator between the last and first name.
+     */
+    private static final String SEPARATOR = ", ";
+
+    private final String last;
+    private final String first; // null when the name is the last component alone
+
+    /**
+     * Creates the name standing for last + ", " + first, or for last alone when
+     * first is null.
+     *
+     * @throws IllegalArgumentException if last is null
+     */
+    public ContactName(String last, String first) throws IllegalArgumentException {
+        if (last == null)
+            throw new IllegalArgumentException("null name");
+        this.last = last;
+        this.first = first;
+    }
+
+    /**
+     * Splits a "last, first" name at its first ", ".
+     *
+     * @param name The full name
+     * @return The name components
+     */
+    public static ContactName of(String name) {
+        int separator = name.indexOf(SEPARATOR);
+        return separator < 0 ? new ContactName(name, null)
+                : new ContactName(name.substring(0, separator), name.substring(separator + SEPARATOR.length()));
+    }
+
+    /**
+     * Returns a name standing for the given text without splitting it, which
+     * compares like the split name and is used to search a map.
+     */
+    static ContactName probe(String text) {
+        return new ContactName(text, null);
+    }
+
+    /**
+     * Returns the last name, or the whole text of a name without first name.
+     */
+    public String last() {
+        return last;
+    }
+
+    /**
+     * Returns the first name, or null.
+     */
+    public String first() {
+        return first;
+    }
+
+    /**
+     * Returns the length of the text of the name.
+     */
+    public int length() {
+        return first == null ? last.length() : last.length() + SEPARATOR.length() + first.length();
+    }
+
+    /**
+     * Returns the character of the text of the name at the given index.
+     */
+    public char charAt(int index) {
+        if (index < last.length())
+            return last.charAt(index);
+        index -= last.length();
+        return index < SEPARATOR.length() ? SEPARATOR.charAt(index) : first.charAt(index - SEPARATOR.length());
+    }
+
+    /**
+     * Compares the texts of two names character by character, as
+     * String.compareTo does. Names with last names of equal length compare
+     * their components directly.
+     */
+    public int compareTo(ContactName other) {
+        if (last.length() == other.last.length()) {
+            int comp = last.compareTo(other.last);
+            if (comp != 0 || first == null || other.first == null)
+                return comp != 0 ? comp : length() - other.length();
+            return first.compareTo(other.first); // same last name and separator
+        }
+        int length = length();
+        int otherLength = other.length();
+        for (int i = 0, n = Math.min(length, otherLength); i < n; i++) {
+            char c = charAt(i);
+            char otherC = other.charAt(i);
+            if (c != otherC)
+                return c - otherC;
+        }
+        return length - otherLength;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ContactName && compareTo((ContactName) other) == 0;
+    }
+
+    /**
+     * Returns the hash code of the text of the name as a String.
+     */
+    @Override
+    public int hashCode() {
+        int hash = last.hashCode();
+        if (first != null) {
+            for (int i = 0; i < SEPARATOR.length(); i++)
+                hash = 31 * hash + SEPARATOR.charAt(i);
+            for (int i = 0; i < first.length(); i++)
+                hash = 31 * hash + first.charAt(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return first == null ? last : last + SEPARATOR + first;
+    }
+}
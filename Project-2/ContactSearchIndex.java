@@ -0,0 +1,390 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Inverted trigram index for fuzzy search over the names and communication
+ * values of the contacts, such as "muir", "sierraclub" or a few digits of a
+ * phone number.
+ * <p>
+ * Every contact is given an int id, and every lower-cased field of the
+ * contact, its name and each of its values, is cut into trigrams, the
+ * substrings of three characters. A value holding at least three digits, such
+ * as a phone number, is also indexed by its digits alone. The index maps each
+ * trigram to the sorted list of the ids of the contacts having it.
+ * <p>
+ * A query is cut into the trigrams of its words, and a contact matches when
+ * it has at least two thirds of them, so a typo or two in a long word is
+ * tolerated. The matches are ranked by the number of trigrams they have, then
+ * alphabetically. Since a match has at least t of the m trigrams of the query,
+ * it is in one of the m - t + 1 shortest lists: only those lists are merged
+ * to find the candidates, and the longer lists of common trigrams such as
+ * "com" are only probed by binary search. The cost of a query thus depends on
+ * its rarest trigrams rather than on the number of contacts.
+ * <p>
+ * The index is kept up to date by calling update with the old and new details
+ * of every contact put or removed.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ContactSearchIndex {
+
+    /**
+     * Shortest field or word indexed or searched.
+     */
+    private static final int GRAM = 3;
+
+    /**
+     * Order of the matches, best first.
+     */
+    private static final Comparator<Match> RANKING = (a, b) -> a.score != b.score ? b.score - a.score
+            : a.name.compareTo(b.name);
+
+    /**
+     * The ids of the contacts having each trigram, packed as a long.
+     */
+    private final PostingTable postings = new PostingTable();
+
+    private final HashMap<String, Integer> ids = new HashMap<>(); // id of every contact name
+    private final List<String> names = new ArrayList<>();         // name of every id, null when free
+    private final List<Integer> freeIds = new ArrayList<>();      // ids of removed contacts, reused
+
+    /**
+     * Creates an empty index.
+     */
+    public ContactSearchIndex() {
+    }
+
+    /**
+     * Creates the index of the given contacts.
+     *
+     * @param contacts The contacts to index
+     */
+    public ContactSearchIndex(Iterable<Entry<String, ContactDetails>> contacts) {
+        for (Entry<String, ContactDetails> contact : contacts)
+            update(contact.getKey(), null, contact.getValue());
+    }
+
+    /**
+     * Replaces the indexed fields of a contact.
+     *
+     * @param name     The contact name
+     * @param previous The details the contact had, or null if it was absent
+     * @param current  The details the contact has now, or null if it was removed
+     */
+    public void update(String name, ContactDetails previous, ContactDetails current) {
+        long[] before = previous == null ? new long[0] : trigrams(name, previous);
+        long[] after = current == null ? new long[0] : trigrams(name, current);
+        Integer id = ids.get(name);
+        if (id == null) {
+            if (current == null)
+                return;
+            id = freeIds.isEmpty() ? names.size() : freeIds.remove(freeIds.size() - 1);
+            if (id == names.size())
+                names.add(name);
+            else
+                names.set(id, name);
+            ids.put(name, id);
+            before = new long[0];
+        }
+        for (long gram : before) { // both arrays are sorted
+            if (Arrays.binarySearch(after, gram) < 0) {
+                Postings list = postings.get(gram);
+                if (list != null)
+                    list.remove(id);
+            }
+        }
+        for (long gram : after) {
+            if (Arrays.binarySearch(before, gram) < 0)
+                postings.getOrCreate(gram).add(id);
+        }
+        if (current == null) {
+            ids.remove(name);
+            names.set(id, null);
+            freeIds.add(id);
+        }
+    }
+
+    /**
+     * Returns the contacts best matching a query, ranked by the number of
+     * trigrams of the query they have, then alphabetically.
+     *
+     * @param query The words to search, three characters or more each
+     * @param limit The maximum number of matches
+     * @return The matches, best first
+     */
+    public List<Match> search(String query, int limit) {
+        List<Match> matches = new ArrayList<>();
+        long[] grams = queryTrigrams(query);
+        int m = grams.length;
+        if (m == 0 || limit <= 0)
+            return matches;
+        int threshold = m - m / 3;
+        Postings[] lists = new Postings[m];
+        for (int i = 0; i < m; i++) {
+            Postings list = postings.get(grams[i]);
+            lists[i] = list == null ? Postings.EMPTY : list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int merged = m - threshold + 1; // every match is in one of these lists
+        int total = 0;
+        for (int i = 0; i < merged; i++)
+            total += lists[i].size;
+        int[] candidates = lists[0].ids; // a single list is already sorted
+        if (merged > 1) {
+            candidates = new int[total];
+            for (int i = 0, k = 0; i < merged; k += lists[i].size, i++)
+                System.arraycopy(lists[i].ids, 0, candidates, k, lists[i].size);
+            Arrays.sort(candidates);
+        }
+        int[] cursors = new int[m]; // the probed lists are walked forward, as the candidates are sorted
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int i = 0; i < total;) {
+            int id = candidates[i];
+            int score = 0;
+            for (; i < total && candidates[i] == id; i++)
+                score++;
+            for (int j = merged; j < m && score + m - j >= threshold; j++) {
+                cursors[j] = lists[j].seek(id, cursors[j]);
+                if (cursors[j] < lists[j].size && lists[j].ids[cursors[j]] == id)
+                    score++;
+            }
+            if (score >= threshold && (best.size() < limit || score >= best.peek().score)) {
+                best.add(new Match(names.get(id), score, m));
+                if (best.size() > limit)
+                    best.poll(); // drop the worst match
+            }
+        }
+        while (!best.isEmpty())
+            matches.add(best.poll());
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    /**
+     * Returns the number of contacts indexed.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Returns the sorted distinct trigrams of the fields of a contact.
+     */
+    private static long[] trigrams(String name, ContactDetails details) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        long[] grams = new long[Math.max(16, lowerName.length())];
+        int count = addTrigrams(lowerName, grams, 0);
+        for (int i = 0; i < details.size(); i++) {
+            String value = details.valueAt(i).toLowerCase(Locale.ROOT);
+            grams = ensure(grams, count + 2 * value.length());
+            count = addTrigrams(value, grams, count);
+            String digits = digits(value);
+            if (digits.length() >= GRAM && digits.length() < value.length())
+                count = addTrigrams(digits, grams, count);
+        }
+        return distinct(grams, count);
+    }
+
+    /**
+     * Returns the sorted distinct trigrams of the words of a query.
+     */
+    private static long[] queryTrigrams(String query) {
+        String lowerQuery = query.trim().toLowerCase(Locale.ROOT);
+        String[] words = lowerQuery.split("\\s+");
+        long[] grams = new long[lowerQuery.length()];
+        int count = 0;
+        for (String word : words)
+            count = addTrigrams(word, grams, count);
+        return distinct(grams, count);
+    }
+
+    /**
+     * Adds the trigrams of a text to an array large enough to hold them.
+     */
+    private static int addTrigrams(String text, long[] grams, int count) {
+        for (int i = 0; i + GRAM <= text.length(); i++)
+            grams[count++] = (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+        return count;
+    }
+
+    /**
+     * Returns an array holding the given one and room for a number of
+     * trigrams.
+     */
+    private static long[] ensure(long[] grams, int capacity) {
+        return capacity <= grams.length ? grams : Arrays.copyOf(grams, Math.max(capacity, 2 * grams.length));
+    }
+
+    /**
+     * Returns the sorted distinct values of the first count trigrams.
+     */
+    private static long[] distinct(long[] grams, int count) {
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1])
+                grams[distinct++] = grams[i];
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Returns the digits of a text.
+     */
+    private static String digits(String text) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i)))
+                digits.append(text.charAt(i));
+        }
+        return digits.toString();
+    }
+
+    /**
+     * A contact matching a query.
+     */
+    public static final class Match {
+        /**
+         * The name of the contact.
+         */
+        public final String name;
+
+        /**
+         * The number of trigrams of the query the contact has.
+         */
+        public final int score;
+
+        /**
+         * The number of trigrams of the query.
+         */
+        public final int maxScore;
+
+        Match(String name, int score, int maxScore) {
+            this.name = name;
+            this.score = score;
+            this.maxScore = maxScore;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d/%d)", name, score, maxScore);
+        }
+    }
+
+    /**
+     * Hash table from trigram to postings with open addressing, which avoids
+     * boxing the trigrams. Emptied postings are kept for the trigram.
+     */
+    private static final class PostingTable {
+        long[] grams = new long[1 << 12];
+        Postings[] lists = new Postings[1 << 12]; // null for a free slot
+        int size;
+
+        /**
+         * Returns the slot of a trigram, or the free slot where it belongs.
+         */
+        int slot(long gram) {
+            int mask = grams.length - 1;
+            int slot = (int) (gram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (lists[slot] != null && grams[slot] != gram)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        Postings get(long gram) {
+            return lists[slot(gram)];
+        }
+
+        Postings getOrCreate(long gram) {
+            int slot = slot(gram);
+            if (lists[slot] == null) {
+                if (2 * (size + 1) > grams.length) { // keep the table at most half full
+                    grow();
+                    slot = slot(gram);
+                }
+                grams[slot] = gram;
+                lists[slot] = new Postings();
+                size++;
+            }
+            return lists[slot];
+        }
+
+        private void grow() {
+            long[] oldGrams = grams;
+            Postings[] oldLists = lists;
+            grams = new long[2 * oldGrams.length];
+            lists = new Postings[2 * oldLists.length];
+            for (int i = 0; i < oldLists.length; i++) {
+                if (oldLists[i] != null) {
+                    int slot = slot(oldGrams[i]);
+                    grams[slot] = oldGrams[i];
+                    lists[slot] = oldLists[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * A sorted list of contact ids.
+     */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        int[] ids = new int[2];
+        int size;
+
+        /**
+         * Inserts an id; appending an id larger than the others is O(1).
+         */
+        void add(int id) {
+            int at = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0)
+                return;
+            at = -at - 1;
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, 2 * size);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        /**
+         * Removes an id, returning true if it was present.
+         */
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0)
+                return false;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Returns the index of the first id not less than the given one, or
+         * size, searching forward from a given index by doubling steps.
+         */
+        int seek(int id, int from) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(ids, low, Math.min(high, size - 1) + 1, id);
+            return at >= 0 ? at : -at - 1;
+        }
+    }
+}
@@ -0,0 +1,493 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * A durable store for the contacts of the ContactsApp, kept in a directory
+ * holding a snapshot file and an append-only write-ahead log.
+ * <p>
+ * Every put and remove is appended to the log before the in-memory map is
+ * changed. Each log record is framed by its length and a CRC32 checksum, so
+ * recovery replays the snapshot and then the log up to the last complete
+ * record, and cuts off a tail torn by a crash. Once enough records have been
+ * logged, compact writes the whole map to a new snapshot, renames it over the
+ * old one and empties the log. A crash between the rename and the truncation
+ * is harmless since replaying a log over the state it produced gives the same
+ * state.
+ * <p>
+ * The snapshot holds a magic number, a version and the contact count, then
+ * the contacts in key order, each as a name, a 16 bit mask of its
+ * Communications ordinals and the values of the set bits in ordinal order,
+ * with every string stored as a 16 bit length and its UTF-8 bytes. It is
+ * written through a FileChannel and read back through a MappedByteBuffer into
+ * loadSorted, which builds the balanced tree in O(n) instead of n puts.
+ * <p>
+ * Each record is handed to the operating system as soon as it is written, and
+ * the log is forced to the disk every syncEvery records: 1 makes every write
+ * durable, a larger batch trades the last few writes before a system crash for
+ * write throughput, and 0 never forces the log before close or compact.
+ * Compaction forces the directory after renaming the new snapshot, so that the
+ * rename is on the disk before the log is truncated, where the system allows
+ * a directory to be opened.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class ContactStore {
+
+    /**
+     * Record type of a put in the log.
+     */
+    private static final byte PUT = 'P';
+
+    /**
+     * Record type of a remove in the log.
+     */
+    private static final byte REMOVE = 'R';
+
+    /**
+     * Identifies a snapshot file.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x434E5453; // "CNTS"
+
+    /**
+     * Version of the snapshot layout.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Size of the direct buffer used to write a snapshot.
+     */
+    private static final int SNAPSHOT_BUFFER = 1 << 16;
+
+    /**
+     * Upper bound of a record length, anything larger is a torn or corrupt tail.
+     */
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final File log;
+    private final File snapshot;
+    private final int syncEvery;
+    private final int compactEvery;
+
+    private FileOutputStream logFile;
+    private DataOutputStream logOut;
+    private int unsynced;  // records written since the last force to the disk
+    private int logged;    // records in the log since the last snapshot
+
+    /**
+     * Creates a store in the given directory, which is created if missing.
+     *
+     * @param directory    The directory holding the snapshot and the log
+     * @param syncEvery    The number of records between forces of the log to the
+     *                     disk, 0 to never force before close
+     * @param compactEvery The number of logged records after which a compaction
+     *                     is due
+     * @throws IllegalArgumentException when a count is negative or compactEvery is 0
+     */
+    public ContactStore(File directory, int syncEvery, int compactEvery) throws IOException {
+        if (syncEvery < 0 || compactEvery < 1)
+            throw new IllegalArgumentException("invalid store settings");
+        Files.createDirectories(directory.toPath());
+        this.log = new File(directory, "contacts.log");
+        this.snapshot = new File(directory, "contacts.snapshot");
+        this.syncEvery = syncEvery;
+        this.compactEvery = compactEvery;
+    }
+
+    /**
+     * Loads the snapshot and replays the log into the given map, then opens the
+     * log for appending. A torn record at the end of the log is cut off.
+     *
+     * @param contacts The map to fill, normally empty
+     * @return The number of log records replayed
+     */
+    public int recover(SortedMap<String, ContactDetails> contacts) throws IOException {
+        if (snapshot.exists())
+            readSnapshot(contacts);
+
+        long valid = 0; // offset just after the last complete record
+        int replayed = 0;
+        if (log.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)))) {
+                for (;;) {
+                    byte[] payload;
+                    try {
+                        int length = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD)
+                            break;
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        if (in.readInt() != checksum(payload))
+                            break;
+                    } catch (EOFException ex) {
+                        break;
+                    }
+                    apply(payload, contacts);
+                    valid += 8 + payload.length;
+                    replayed++;
+                }
+            }
+            if (valid < log.length()) {
+                try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+                    file.setLength(valid); // drop the torn tail before appending after it
+                }
+            }
+        }
+        logged = replayed;
+        openLog(true);
+        return replayed;
+    }
+
+    /**
+     * Appends a put of the given contact to the log.
+     *
+     * @param name           The contact name
+     * @param communications The contact communication options
+     */
+    public void logPut(String name, ContactDetails communications) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeByte(PUT);
+        record.writeUTF(name);
+        writeCommunications(record, communications);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Appends a remove of the given contact to the log.
+     *
+     * @param name The contact name
+     */
+    public void logRemove(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeByte(REMOVE);
+        record.writeUTF(name);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Returns true when enough records were logged since the last snapshot.
+     */
+    public boolean compactionDue() {
+        return logged >= compactEvery;
+    }
+
+    /**
+     * Writes all the contacts to a new snapshot and empties the log.
+     *
+     * @param contacts The map holding the current contacts
+     */
+    public void compact(SortedMap<String, ContactDetails> contacts) throws IOException {
+        sync();
+        File temporary = new File(snapshot.getPath() + ".tmp");
+        writeSnapshot(contacts, temporary);
+        Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(); // the rename must be on the disk before the log is emptied
+        logOut.close();
+        openLog(false);
+        logged = 0;
+    }
+
+    /**
+     * Forces the entries of the store directory, such as a renamed snapshot,
+     * to the disk. This is best effort: some systems, such as Windows, cannot
+     * open a directory, and there the rename is left to the file system.
+     */
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(snapshot.getAbsoluteFile().getParentFile().toPath(),
+                StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ex) {
+            // the directory cannot be opened or forced on this system
+        }
+    }
+
+    /**
+     * Forces the records written so far to the disk.
+     */
+    public void sync() throws IOException {
+        logOut.flush();
+        logFile.getFD().sync();
+        unsynced = 0;
+    }
+
+    /**
+     * Forces the log to the disk and closes it.
+     */
+    public void close() throws IOException {
+        if (logOut != null) {
+            sync();
+            logOut.close();
+            logOut = null;
+        }
+    }
+
+    /**
+     * Opens the log for writing.
+     *
+     * @param append false to empty the log first
+     */
+    private void openLog(boolean append) throws IOException {
+        logFile = new FileOutputStream(log, append);
+        logOut = new DataOutputStream(new BufferedOutputStream(logFile));
+        unsynced = 0;
+    }
+
+    /**
+     * Appends a framed record to the log and forces the log when a batch is
+     * complete.
+     *
+     * @param payload The record content
+     */
+    private void append(byte[] payload) throws IOException {
+        if (logOut == null)
+            throw new IllegalStateException("store not open");
+        logOut.writeInt(payload.length);
+        logOut.write(payload);
+        logOut.writeInt(checksum(payload));
+        logOut.flush(); // hand the record to the operating system, so only a system crash can lose it
+        logged++;
+        if (syncEvery > 0 && ++unsynced >= syncEvery)
+            sync();
+    }
+
+    /**
+     * Applies a log record to the map.
+     *
+     * @param payload  The record content
+     * @param contacts The map to update
+     */
+    private void apply(byte[] payload, Map<String, ContactDetails> contacts)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String name = in.readUTF();
+        if (type == PUT)
+            contacts.put(name, readCommunications(in));
+        else if (type == REMOVE)
+            contacts.remove(name);
+        else
+            throw new IOException("unknown log record type " + type);
+    }
+
+    /**
+     * Writes the contacts, in key order, to a snapshot file through a direct
+     * buffer and forces it to the disk.
+     *
+     * @param contacts The map holding the contacts
+     * @param file     The snapshot file to write
+     */
+    private static void writeSnapshot(SortedMap<String, ContactDetails> contacts, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(contacts.size());
+            byte[][] values = new byte[ContactsApp.Communications.values().length][];
+            for (Entry<String, ContactDetails> entry : contacts.entrySet()) {
+                byte[] name = encode(entry.getKey());
+                ContactDetails details = entry.getValue();
+                int needed = 4 + name.length;
+                for (int i = 0; i < details.size(); i++) {
+                    values[i] = encode(details.valueAt(i));
+                    needed += 2 + values[i].length;
+                }
+                if (buffer.remaining() < needed) {
+                    drain(channel, buffer);
+                    if (buffer.capacity() < needed)
+                        buffer = ByteBuffer.allocate(needed); // a contact larger than the buffer
+                }
+                buffer.putShort((short) name.length).put(name).putShort((short) details.mask());
+                for (int i = 0; i < details.size(); i++) { // values in ordinal order
+                    buffer.putShort((short) values[i].length).put(values[i]);
+                }
+            }
+            drain(channel, buffer);
+            channel.force(true); // the snapshot must be on the disk before the log is emptied
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel and clears the buffer.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a string of the snapshot.
+     *
+     * @throws IOException if the string does not fit a 16 bit length
+     */
+    private static byte[] encode(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF)
+            throw new IOException("string too long for a snapshot: " + bytes.length + " bytes");
+        return bytes;
+    }
+
+    /**
+     * Maps the snapshot into memory and reads it into the map. An empty
+     * BinarySearchTreeMap or EncodedContactMap is built directly from the sorted
+     * snapshot in O(n) by loadSorted, otherwise the contacts are put one by one.
+     *
+     * @param contacts The map to fill
+     */
+    @SuppressWarnings("unchecked")
+    private void readSnapshot(SortedMap<String, ContactDetails> contacts)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("snapshot too large to map: " + snapshot);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION)
+                throw new IOException("not a contacts snapshot: " + snapshot);
+            int count = buffer.getInt();
+            SnapshotIterator entries = new SnapshotIterator(buffer, count);
+            if (contacts.isEmpty() && contacts instanceof BinarySearchTreeMap) {
+                ((BinarySearchTreeMap<String, ContactDetails>) contacts).loadSorted(entries, count);
+            } else if (contacts.isEmpty() && contacts instanceof EncodedContactMap) {
+                ((EncodedContactMap) contacts).loadSorted(entries, count);
+            } else {
+                while (entries.hasNext()) {
+                    Entry<String, ContactDetails> entry = entries.next();
+                    contacts.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("truncated snapshot: " + snapshot, ex);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes the communication options as a count followed by ordinal and value
+     * pairs.
+     */
+    private static void writeCommunications(DataOutputStream out, ContactDetails communications)
+            throws IOException {
+        out.writeByte(communications.size());
+        for (int bits = communications.mask(), i = 0; bits != 0; bits &= bits - 1, i++) {
+            out.writeByte(Integer.numberOfTrailingZeros(bits));
+            out.writeUTF(communications.valueAt(i));
+        }
+    }
+
+    /**
+     * Reads the communication options written by writeCommunications.
+     */
+    private static ContactDetails readCommunications(DataInputStream in) throws IOException {
+        String[] communications = new String[ContactsApp.Communications.values().length];
+        for (int count = in.readUnsignedByte(); count > 0; count--) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= communications.length)
+                throw new IOException("unknown communication option " + ordinal);
+            communications[ordinal] = in.readUTF();
+        }
+        return ContactDetails.of(communications);
+    }
+
+    /**
+     * Returns the CRC32 checksum of the record content.
+     */
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Decodes the contacts of a mapped snapshot one at a time, in key order.
+     */
+    private static class SnapshotIterator implements Iterator<Entry<String, ContactDetails>> {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256]; // reused for every string
+        private int remaining;
+
+        SnapshotIterator(ByteBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.remaining = count;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public Entry<String, ContactDetails> next() {
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            String name = decode();
+            int options = Short.toUnsignedInt(buffer.getShort());
+            String[] values = new String[Integer.bitCount(options)];
+            for (int i = 0; i < values.length; i++)
+                values[i] = decode();
+            try {
+                return new Contact(name, ContactDetails.fromMask(options, values));
+            } catch (IllegalArgumentException ex) {
+                throw new UncheckedIOException(new IOException("unknown communication options " + options, ex));
+            }
+        }
+
+        /**
+         * Reads a length prefixed UTF-8 string.
+         */
+        private String decode() {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (scratch.length < length)
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A contact read from a snapshot.
+     */
+    private static class Contact implements Entry<String, ContactDetails> {
+        private final String name;
+        private final ContactDetails communications;
+
+        Contact(String name, ContactDetails communications) {
+            this.name = name;
+            this.communications = communications;
+        }
+
+        public String getKey() {
+            return name;
+        }
+
+        public ContactDetails getValue() {
+            return communications;
+        }
+    }
+}
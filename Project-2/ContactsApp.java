@@ -1,10 +1,28 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.ConcurrentModificationException;
 import java.util.InputMismatchException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * This is the entry point for the command line application.
@@ -20,9 +38,57 @@ public class ContactsApp {
     /**
      * The collection of contacts managed by this application.
      */
-    private final BinarySearchTreeMap<String, HashMap<ContactsApp.Communications, String>> contacts = new BinarySearchTreeMap<>();
+    private final SortedMap<String, ContactDetails> contacts;
     private Integer put;
 
+    /**
+     * The durable store of the contacts, or null when the contacts are only kept
+     * in memory.
+     */
+    private ContactStore store;
+
+    /**
+     * The indexes of the contacts by communication value, built by the first
+     * reverse lookup and kept up to date by every later change, or null.
+     */
+    private ContactIndex index;
+
+    /**
+     * The trigram index of the names and communications of the contacts, built
+     * by the first fuzzy search and kept up to date by every later change, or
+     * null.
+     */
+    private ContactSearchIndex searchIndex;
+
+    /**
+     * The maximum number of contacts listed by a fuzzy search.
+     */
+    private static final int SEARCH_LIMIT = 25;
+
+    /**
+     * The number of seconds between two prints of the metrics.
+     */
+    private static final int METRICS_PERIOD_SECONDS = 60;
+
+    /**
+     * The number of contacts listed per page by the list menu options.
+     */
+    private static final int PAGE_SIZE = 25;
+
+    /**
+     * Creates the application with its contacts in an AVL tree.
+     */
+    public ContactsApp() {
+        this(new AVLTreeMap<>());
+    }
+
+    /**
+     * Creates the application with its contacts in the given empty map.
+     */
+    ContactsApp(SortedMap<String, ContactDetails> contacts) {
+        this.contacts = contacts;
+    }
+
     /**
      * Assert that the given condition is true.
      *
@@ -47,56 +113,305 @@ public class ContactsApp {
      *             application menu is shown.
      *             If the argument is "-test", then the unit tests are executed and
      *             the application exists.
+     *             If the arguments are "-store" and a directory, then the contacts
+     *             are recovered from and saved to that directory.
+     *             If the arguments are "-import" and a CSV or vCard file, then the
+     *             contacts of the file are added to the store and the application
+     *             exits.
+     *             If the argument "-dictionary" is given, then the names and
+     *             values of the contacts are stored through a ContactDictionary.
+     *             If the argument "-radix" is given, then the contacts are
+     *             stored in a RadixTreeMap.
+     *             If the argument "-metrics" is given, then the metrics of the
+     *             contacts map are recorded, registered as a JMX MBean and
+     *             printed every minute.
      */
     public static void main(String... args) {
         ContactsApp contactsApp = new ContactsApp();
 
         // Determine if testing mode
         if (args.length == 1 && args[0].trim().equalsIgnoreCase("-test")) {
-            System.exit(contactsApp.testBinarySearchTreeMap() && contactsApp.testCRUD() ? 0 : -1);
+            System.exit(contactsApp.testBinarySearchTreeMap() && contactsApp.testBalancedTreeMaps()
+                    && contactsApp.testArrayBinaryTree() && contactsApp.testDeepTrees()
+                    && contactsApp.testTreeStatistics() && contactsApp.testTreeIterators()
+                    && contactsApp.testTreeSpliterator()
+                    && contactsApp.testTreeMapMetrics() && contactsApp.testConcurrentTreeMap()
+                    && contactsApp.testPersistentTreeMap() && contactsApp.testRadixTreeMap()
+                    && contactsApp.testContactStore() && contactsApp.testContactImporter()
+                    && contactsApp.testEncodedContactMap()
+                    && contactsApp.testContactIndex() && contactsApp.testContactSearchIndex()
+                    && contactsApp.testCRUD() ? 0 : -1);
+        }
+
+        // Determine if the contacts are kept on disk, or imported from a file
+        String storeDirectory = null;
+        String importFile = null;
+        boolean metrics = false;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i].trim();
+            if (option.equalsIgnoreCase("-dictionary")) {
+                contactsApp = new ContactsApp(new EncodedContactMap());
+            } else if (option.equalsIgnoreCase("-radix")) {
+                contactsApp = new ContactsApp(new RadixTreeMap<>());
+            } else if (option.equalsIgnoreCase("-store") && i + 1 < args.length) {
+                storeDirectory = args[++i];
+            } else if (option.equalsIgnoreCase("-import") && i + 1 < args.length) {
+                importFile = args[++i];
+            } else if (option.equalsIgnoreCase("-metrics")) {
+                metrics = true;
+            }
+        }
+        if (storeDirectory != null) {
+            try {
+                contactsApp.openStore(new File(storeDirectory), importFile == null ? 32 : 0, 10000); // an import syncs per batch
+            } catch (IOException ex) {
+                System.out.format("Could not open the contact store '%s': %s%n", storeDirectory, ex.getMessage());
+                System.exit(-1);
+            }
+        }
+        if (importFile != null) {
+            boolean imported = contactsApp.importContacts(new File(importFile));
+            contactsApp.closeStore();
+            System.exit(imported ? 0 : -1);
+        }
+        if (metrics) {
+            contactsApp.startMetrics();
         }
 
         contactsApp.menu();
     }
 
+    /**
+     * Records the metrics of the contacts map, registers them as an MBean, and
+     * prints them every METRICS_PERIOD_SECONDS from a daemon thread.
+     */
+    private void startMetrics() {
+        TreeMapMetrics metrics;
+        if (contacts instanceof BinarySearchTreeMap) {
+            metrics = ((BinarySearchTreeMap<?, ?>) contacts).enableMetrics();
+        } else if (contacts instanceof EncodedContactMap) {
+            metrics = ((EncodedContactMap) contacts).enableMetrics();
+        } else {
+            System.out.println("Metrics are only recorded for the tree maps.");
+            return;
+        }
+        try {
+            System.out.format("Contacts map metrics registered as %s.%n", metrics.register("contacts"));
+        } catch (JMException ex) {
+            System.out.format("The metrics could not be registered: %s%n", ex.getMessage());
+        }
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "contacts-metrics");
+            thread.setDaemon(true); // does not keep the application running
+            return thread;
+        });
+        timer.scheduleAtFixedRate(
+                () -> System.out.format("%nContacts Map Metrics%n------------%n%s%n", metrics),
+                METRICS_PERIOD_SECONDS, METRICS_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Recovers the contacts from the store in the given directory, then saves
+     * every later change of the contacts to it.
+     *
+     * @param directory    The directory of the store
+     * @param syncEvery    The number of changes between forces of the log to the
+     *                     disk
+     * @param compactEvery The number of logged changes between snapshots
+     */
+    private void openStore(File directory, int syncEvery, int compactEvery) throws IOException {
+        store = new ContactStore(directory, syncEvery, compactEvery);
+        int replayed = store.recover(contacts);
+        System.out.format("Recovered %d contacts (%d logged changes) from '%s'.%n", contacts.size(), replayed,
+                directory);
+    }
+
+    /**
+     * Adds or updates a contact, logging the change to the store first when
+     * there is one.
+     *
+     * @param name           The contact name
+     * @param communications The contact communication options
+     */
+    private void putContact(String name, ContactDetails communications)
+            throws IOException {
+        if (store != null)
+            store.logPut(name, communications);
+        indexContact(name, contacts.put(name, communications), communications);
+        compactStoreIfDue();
+    }
+
+    /**
+     * Removes a contact, logging the change to the store first when there is
+     * one.
+     *
+     * @param name The contact name
+     */
+    private void deleteContact(String name) throws IOException {
+        if (store != null)
+            store.logRemove(name);
+        indexContact(name, contacts.remove(name), null);
+        compactStoreIfDue();
+    }
+
+    /**
+     * Updates the indexes that have been built with a change of a contact.
+     *
+     * @param name     The contact name
+     * @param previous The details the contact had, or null if it was absent
+     * @param current  The details the contact has now, or null if it was removed
+     */
+    private void indexContact(String name, ContactDetails previous, ContactDetails current) {
+        if (index != null)
+            index.update(name, previous, current);
+        if (searchIndex != null)
+            searchIndex.update(name, previous, current);
+    }
+
+    /**
+     * Imports the contacts of a CSV or vCard file and reports the throughput and
+     * the rejected records. The contacts are logged to the store, if any, which
+     * is forced to the disk after every batch and compacted once at the end.
+     *
+     * @param file The file to import
+     * @return true when the file was imported
+     */
+    private boolean importContacts(File file) {
+        if (store == null) {
+            System.out.println("No -store given, the imported contacts will not be kept.");
+        }
+        ContactImporter.ContactWriter writer = new ContactImporter.ContactWriter() {
+            public void put(String name, ContactDetails communications)
+                    throws IOException {
+                if (store != null)
+                    store.logPut(name, communications);
+                indexContact(name, contacts.put(name, communications), communications);
+            }
+
+            public void endBatch() throws IOException {
+                if (store != null)
+                    store.sync();
+            }
+        };
+        try {
+            ContactImporter.Result result = new ContactImporter().importFile(file.toPath(), writer);
+            if (store != null)
+                store.compact(contacts);
+            System.out.format("Imported '%s': %s. %d contacts in total.%n", file, result, contacts.size());
+            return true;
+        } catch (IOException | IllegalArgumentException ex) {
+            System.out.format("Could not import '%s': %s%n", file, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the contacts once enough changes have been logged.
+     */
+    private void compactStoreIfDue() throws IOException {
+        if (store != null && store.compactionDue())
+            store.compact(contacts);
+    }
+
+    /**
+     * The communication option of each ASCII first letter, in upper and lower
+     * case, or null when no option starts with the letter.
+     */
+    private static final Communications[] COMMUNICATION_LETTERS = new Communications[128];
+
+    /**
+     * The number of communication options.
+     */
+    private static final int COMMUNICATION_COUNT = Communications.values().length;
+
+    static {
+        for (Communications communication : Communications.values()) {
+            char letter = communication.name().charAt(0);
+            if (COMMUNICATION_LETTERS[letter] == null) { // the first option with a given letter wins
+                COMMUNICATION_LETTERS[letter] = communication;
+                COMMUNICATION_LETTERS[Character.toLowerCase(letter)] = communication;
+            }
+        }
+    }
+
     /**
      * Converts a string of comma separated keys and values of communication options
      * into a
-     * HashMap of the communication options. For instance the string "email:
+     * ContactDetails of the communication options. For instance the string "email:
      * me@trinity.com, link: me, snap: @me" is
      * converted into a map of keys and values where the keys are the Communications
      * enums (EMAIL, SNAPCHAT, etc),
      * and the values are the associated communication ids on that platform, eg.
      * "me@trinity.com".
+     * <p>
+     * The string is scanned once, the option is found from the first letter of
+     * its key in a lookup table, and only the values are copied into new strings.
+     * As before, a token without exactly one colon (ignoring trailing colons) is
+     * skipped.
      *
      * @param platforms The string representing the options
-     * @return The parsed communication options as a HashMap collection
-     */
-    private HashMap<Communications, String> parseCommunications(String platforms) throws IllegalArgumentException {
-        HashMap<Communications, String> communications = new HashMap<>();
-
-        // Parse the string at the commas into an array of tokens
-        for (String platform : platforms.split(",")) {
-
-            // Parse each token at the colon, to separate the communication types and its
-            // associated id
-            String[] platformKeyValue = platform.split(":");
-
-            // Array must have two parts, e.g. "email" and "me@trinity.com"
-            if (platformKeyValue.length == 2) {
-                // Given the token like "g", find the matching enum, such as "GITHUB", assumes
-                // first letter is unique
-                String platformLetter = "" + platformKeyValue[0].trim().toUpperCase().charAt(0);
-                Communications com = Arrays.stream(
-                        Communications.values())
-                        .filter(communication -> communication.name().startsWith(platformLetter)).findFirst()
-                        .orElseThrow(IllegalArgumentException::new);
-                communications.put(com, platformKeyValue[1].trim()); // Add to map "EMAIL" associated with
-                                                                     // "me@trinity.com"
+     * @return The parsed communication options as a ContactDetails
+     * @throws IllegalArgumentException if a key is blank or matches no option
+     */
+    static ContactDetails parseCommunications(String platforms) throws IllegalArgumentException {
+        String[] communications = new String[COMMUNICATION_COUNT]; // values indexed by ordinal
+        int length = platforms.length();
+        int start = 0; // first character of the current token
+        int colon = -1; // first colon of the current token
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? platforms.charAt(i) : ',';
+            if (c == ',') {
+                if (colon >= 0) {
+                    parseCommunication(platforms, start, colon, i, communications);
+                }
+                start = i + 1;
+                colon = -1;
+            } else if (c == ':' && colon < 0) {
+                colon = i;
             }
         }
 
-        return communications;
+        return ContactDetails.of(communications);
+    }
+
+    /**
+     * Stores the value of the communication option of the token between start
+     * and end, holding its first colon at the given index, at the ordinal of the
+     * option.
+     */
+    private static void parseCommunication(String platforms, int start, int colon, int end,
+            String[] communications) throws IllegalArgumentException {
+        while (end > colon + 1 && platforms.charAt(end - 1) == ':') {
+            end--; // trailing empty parts do not count
+        }
+        if (end == colon + 1) {
+            return; // no value, e.g. "email:"
+        }
+        for (int i = colon + 1; i < end; i++) {
+            if (platforms.charAt(i) == ':') {
+                return; // more than one colon, e.g. "w: https://..."
+            }
+        }
+
+        // Given the key like "g", find the matching enum, such as "GITHUB"
+        while (start < colon && platforms.charAt(start) <= ' ') {
+            start++;
+        }
+        char letter = start < colon ? platforms.charAt(start) : ' ';
+        Communications com = letter < COMMUNICATION_LETTERS.length ? COMMUNICATION_LETTERS[letter] : null;
+        if (com == null) {
+            throw new IllegalArgumentException("unknown communication option in " + platforms);
+        }
+
+        int valueStart = colon + 1;
+        while (valueStart < end && platforms.charAt(valueStart) <= ' ') {
+            valueStart++;
+        }
+        while (end > valueStart && platforms.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        communications[com.ordinal()] = platforms.substring(valueStart, end); // "EMAIL" associated with
+                                                                              // "me@trinity.com"
     }
 
     /**
@@ -109,6 +424,9 @@ public class ContactsApp {
      * 3. Test the methods get(), put() and remove().
      * 4. Print and verify all values using the method values().
      * 5. Print and verify all keys using the method keySet().
+     * 6. Test get(), remove() and entrySet() on a degenerate tree of sorted keys.
+     * 7. Test the navigation methods of the sorted map.
+     * 8. Test select(), rank() and page() with the entry counts of the nodes.
      *
      * @return true when all tests pass.
      */
@@ -126,10 +444,8 @@ public class ContactsApp {
         }
 
         // Test 1: All items inserted into tree
-        int expectedSizeWithSentinels = (samples.length * 2) + 1;
-        boolean pass = assertTrue(searchables.size == expectedSizeWithSentinels,
-                "Test 1: All items (including sentinels) have been added to tree as count is %d.",
-                expectedSizeWithSentinels);
+        boolean pass = assertTrue(searchables.size() == samples.length,
+                "Test 1: All items have been added to tree as count is %d.", samples.length);
         String phiToken = "(" + samples[1] + ", " + values[1] + ")";
         pass = pass && assertTrue(searchables.toString().contains(phiToken), "Test 1: Text output contains token: %s",
                 phiToken);
@@ -191,9 +507,1281 @@ public class ContactsApp {
                                                                                   // and mark test as pass if so
         }
 
+        // Test 6: Search a degenerate tree built from sorted keys without recursion
+        BinarySearchTreeMap<Integer, Integer> degenerate = new BinarySearchTreeMap<>();
+        int count = 20000;
+        for (int i = 0; i < count; i++) { // every key becomes the right child of the previous one
+            degenerate.put(i, i);
+        }
+        pass = pass && assertTrue(degenerate.get(count - 1) == count - 1 && degenerate.get(count) == null,
+                "Test 6: Search at depth %d of a degenerate tree.", count);
+        pass = pass && assertTrue(degenerate.remove(count - 1) == count - 1 && degenerate.get(count - 1) == null,
+                "Test 6: Remove at depth %d of a degenerate tree.", count);
+        int streamed = 0;
+        for (Entry<Integer, Integer> entry : degenerate.entrySet()) { // lazy in-order walk over parent links
+            streamed += entry.getKey() == streamed ? 1 : 0;
+        }
+        pass = pass && assertTrue(streamed == count - 1,
+                "Test 6: Stream %d entries in order from a degenerate tree.", streamed);
+
+        // Test 7: Navigate the sorted keys alpha, beta, delta, epsilon, gamma, lambda, phi, zeta
+        pass = pass && assertTrue(searchables.firstEntry().getKey().equals("alpha")
+                && searchables.lastEntry().getKey().equals("zeta"),
+                "Test 7: The first key is 'alpha' and the last key is 'zeta'.");
+        pass = pass && assertTrue(searchables.floorEntry("c").getKey().equals("beta")
+                && searchables.ceilingEntry("c").getKey().equals("delta"),
+                "Test 7: The floor of 'c' is 'beta' and its ceiling is 'delta'.");
+        pass = pass && assertTrue(searchables.lowerEntry("beta").getKey().equals("alpha")
+                && searchables.higherEntry("zeta") == null && searchables.floorEntry("beta").getKey().equals("beta"),
+                "Test 7: The key lower than 'beta' is 'alpha' and no key is higher than 'zeta'.");
+        List<String> range = new ArrayList<>();
+        for (Entry<String, Integer> entry : searchables.subMap("beta", "gamma")) {
+            range.add(entry.getKey());
+        }
+        pass = pass && assertTrue(range.equals(Arrays.asList("beta", "delta", "epsilon")),
+                "Test 7: The keys from 'beta' up to 'gamma' are %s.", range);
+
+        // Test 8: Order statistics on the sorted keys
+        pass = pass && assertTrue(searchables.select(0).getKey().equals("alpha")
+                && searchables.select(7).getKey().equals("zeta") && searchables.select(4).getKey().equals("gamma"),
+                "Test 8: The keys at index 0, 4 and 7 are 'alpha', 'gamma' and 'zeta'.");
+        pass = pass && assertTrue(searchables.rank("alpha") == 0 && searchables.rank("gamma") == 4
+                && searchables.rank("c") == 2 && searchables.rank("zz") == 8,
+                "Test 8: The ranks of 'alpha', 'gamma', 'c' and 'zz' are 0, 4, 2 and 8.");
+        List<String> page = new ArrayList<>();
+        for (Entry<String, Integer> entry : searchables.page(3, 3)) {
+            page.add(entry.getKey());
+        }
+        pass = pass && assertTrue(page.equals(Arrays.asList("epsilon", "gamma", "lambda")),
+                "Test 8: The page of 3 keys at offset 3 is %s.", page);
+
+        // Test 9: Bulk load a balanced tree from sorted entries
+        BinarySearchTreeMap<Integer, Integer> loaded = BinarySearchTreeMap.fromSorted(degenerate.entrySet().iterator());
+        int loadedHeight = loaded.height(loaded.root());
+        pass = pass && assertTrue(loaded.size() == count - 1 && loaded.get(0) == 0 && loaded.get(count - 2) == count - 2
+                && loaded.rank(count / 2) == count / 2 && loadedHeight == 14,
+                "Test 9: Loaded %d sorted entries into a tree of height %d.", loaded.size(), loadedHeight);
+        AVLTreeMap<Integer, Integer> balanced = BinarySearchTreeMap.fromSorted(loaded.entrySet().iterator(),
+                new AVLTreeMap<>());
+        for (int i = count; i < 2 * count; i++) { // sorted insertions keep the loaded tree balanced
+            balanced.put(i, i);
+        }
+        loadedHeight = balanced.height(balanced.root());
+        pass = pass && assertTrue(balanced.size() == 2 * count - 1 && loadedHeight <= 21,
+                "Test 9: A loaded AVLTreeMap has height %d after %d more insertions.", loadedHeight, count);
+        Entry<Integer, Integer> first = loaded.select(0);
+        Entry<Integer, Integer> second = loaded.select(1);
+        int rejected = 0;
+        for (List<Entry<Integer, Integer>> invalid : Arrays.asList(Arrays.asList(second, first),
+                Arrays.asList(first, first))) { // reversed and duplicate keys
+            try {
+                BinarySearchTreeMap.fromSorted(invalid.iterator());
+            } catch (IllegalArgumentException ex) {
+                rejected++;
+            }
+        }
+        pass = pass && assertTrue(rejected == 2, "Test 9: Reversed and duplicate keys are rejected.");
+
         return assertTrue(pass, "All tests for BinarySearchTreeMap");
     }
 
+    /**
+     * Unit Tests for the balanced variants of BinarySearchTreeMap.
+     * <p>
+     * 1. Insert keys in sorted order, which degenerates a plain binary search tree
+     * into a list, and verify the tree height stays logarithmic.
+     * 2. Remove every other key and verify the height and the remaining entries.
+     * 3. Verify select() and rank() after the rotations.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testBalancedTreeMaps() {
+        boolean pass = testBalancedTreeMap("AVLTreeMap", new AVLTreeMap<>(), 1.45);
+        pass = testBalancedTreeMap("RBTreeMap", new RBTreeMap<>(), 2.0) && pass;
+
+        return assertTrue(pass, "All tests for the balanced tree maps");
+    }
+
+    /**
+     * Runs the balanced tree tests against the given empty map.
+     *
+     * @param label        The name of the map implementation
+     * @param searchables  The empty map to test
+     * @param heightFactor The factor of log2(n) the tree height may not exceed
+     * @return true when all tests pass.
+     */
+    private boolean testBalancedTreeMap(String label, BinarySearchTreeMap<Integer, Integer> searchables,
+            double heightFactor) {
+        int count = 10000;
+        for (int i = 0; i < count; i++) { // sorted input, the worst case of a plain tree
+            searchables.put(i, i * 2);
+        }
+        int maxHeight = (int) (heightFactor * Math.log(count + 2) / Math.log(2));
+        int height = searchables.height(searchables.root());
+        boolean pass = assertTrue(height <= maxHeight,
+                "%s Test 1: Height %d after %d sorted insertions is at most %d.", label, height, count, maxHeight);
+
+        for (int i = 0; i < count; i += 2) { // remove the even keys
+            searchables.remove(i);
+        }
+        height = searchables.height(searchables.root());
+        pass = pass && assertTrue(height <= maxHeight,
+                "%s Test 2: Height %d after %d removals is at most %d.", label, height, count / 2, maxHeight);
+
+        boolean found = true;
+        for (int i = 0; i < count; i++) { // odd keys remain, even keys are gone
+            Integer value = searchables.get(i);
+            found = found && (i % 2 == 0 ? value == null : value == i * 2);
+        }
+        pass = pass && assertTrue(found, "%s Test 2: The %d odd keys remain after removal.", label, count / 2);
+
+        int expected = 1;
+        boolean ordered = true;
+        for (Integer key : searchables.keySet()) { // keys are listed in order
+            ordered = ordered && key == expected;
+            expected += 2;
+        }
+        pass = pass && assertTrue(ordered && expected == count + 1, "%s Test 2: Keys are listed in order.", label);
+
+        boolean ranked = true;
+        for (int i = 0; i < count / 2; i++) { // entry counts are kept through the rotations
+            ranked = ranked && searchables.select(i).getKey() == 2 * i + 1 && searchables.rank(2 * i + 1) == i;
+        }
+        pass = pass && assertTrue(ranked, "%s Test 3: select() and rank() agree for all %d keys.", label, count / 2);
+
+        return pass;
+    }
+
+    /**
+     * Unit Tests for ArrayBinaryTree.
+     * <p>
+     * 1. Build the same tree with LinkedBinaryTree and ArrayBinaryTree and verify
+     * the three traversals agree.
+     * 2. Remove nodes and verify a removed position is rejected, even after its
+     * slot is reused.
+     * 3. Attach two trees below a leaf.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testArrayBinaryTree() {
+        LinkedBinaryTree<String> linked = new LinkedBinaryTree<>();
+        ArrayBinaryTree<String> array = new ArrayBinaryTree<>(2); // small capacity to make the arrays grow
+        Position<String> a = linked.addRoot("a");
+        Position<String> b = linked.addLeft(a, "b");
+        linked.addLeft(b, "d");
+        linked.addRight(b, "e");
+        linked.addRight(linked.addRight(a, "c"), "f");
+        Position<String> arrayA = array.addRoot("a");
+        Position<String> arrayB = array.addLeft(arrayA, "b");
+        Position<String> arrayD = array.addLeft(arrayB, "d");
+        array.addRight(arrayB, "e");
+        Position<String> arrayC = array.addRight(arrayA, "c");
+        array.addRight(arrayC, "f");
+
+        // Test 1: Same traversals as the linked tree
+        boolean pass = assertTrue(String.join("", array.preorderElements()).equals("abdecf")
+                && String.join("", linked.preorderElements()).equals("abdecf"),
+                "ArrayBinaryTree Test 1: Preorder is %s.", String.join("", array.preorderElements()));
+        pass = pass && assertTrue(String.join("", array.inorderElements()).equals(
+                String.join("", linked.inorderElements())),
+                "ArrayBinaryTree Test 1: Inorder is %s.", String.join("", array.inorderElements()));
+        pass = pass && assertTrue(String.join("", array.postorderElements()).equals(
+                String.join("", linked.postorderElements())),
+                "ArrayBinaryTree Test 1: Postorder is %s.", String.join("", array.postorderElements()));
+        pass = pass && assertTrue(array.isRoot(array.root()) && array.sibling(arrayB).equals(arrayC)
+                && array.height(array.root()) == 2, "ArrayBinaryTree Test 1: Root, sibling and height are consistent.");
+
+        // Test 2: Remove a leaf and a node with one child, then reuse a slot
+        array.remove(arrayD);
+        array.remove(arrayC); // f takes the place of c
+        pass = pass && assertTrue(array.size() == 4 && String.join("", array.inorderElements()).equals("beaf"),
+                "ArrayBinaryTree Test 2: After removals the inorder is %s.", String.join("", array.inorderElements()));
+        boolean rejected = false;
+        try {
+            array.left(arrayD);
+        } catch (IllegalArgumentException ex) {
+            rejected = true;
+        }
+        pass = pass && assertTrue(rejected, "ArrayBinaryTree Test 2: A removed position is rejected.");
+        int used = array.used;
+        array.addLeft(array.right(arrayA), "g");
+        pass = pass && assertTrue(array.used == used && String.join("", array.inorderElements()).equals("beagf"),
+                "ArrayBinaryTree Test 2: A free slot was reused for 'g', the inorder is %s.",
+                String.join("", array.inorderElements()));
+        rejected = false;
+        try {
+            array.parent(arrayC); // its slot now holds g
+        } catch (IllegalArgumentException ex) {
+            try {
+                arrayC.getElement();
+            } catch (IllegalStateException stale) {
+                rejected = true;
+            }
+        }
+        pass = pass && assertTrue(rejected,
+                "ArrayBinaryTree Test 2: A removed position stays rejected once its slot is reused.");
+
+        // Test 3: Attach two trees below a leaf
+        ArrayBinaryTree<String> left = new ArrayBinaryTree<>();
+        left.addLeft(left.addRoot("h"), "i");
+        ArrayBinaryTree<String> right = new ArrayBinaryTree<>();
+        right.addRoot("j");
+        array.attach(array.right(arrayB), left, right); // below e
+        pass = pass && assertTrue(array.size() == 8 && left.isEmpty() && right.isEmpty()
+                && String.join("", array.preorderElements()).equals("abehijfg"),
+                "ArrayBinaryTree Test 3: After attach the preorder is %s.", String.join("", array.preorderElements()));
+
+        return assertTrue(pass, "All tests for ArrayBinaryTree");
+    }
+
+    /**
+     * Tests for traversals of a degenerate tree.
+     * <p>
+     * 1. Build a zigzag chain of a million nodes in a LinkedBinaryTree, node i
+     * having node i + 1 as its left child when i is even and as its right child
+     * when i is odd, and verify the preorder, inorder and postorder, the height,
+     * the total depth and the depth of the deepest node, none of which may
+     * overflow the stack. The chain is built bottom-up by attach, so that each
+     * step updates the cached sizes and heights of a single node.
+     * 2. Build the same chain in an ArrayBinaryTree, and verify the positions,
+     * height and depth inherited from AbstractTree.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testDeepTrees() {
+        int n = 1_000_000;
+        LinkedBinaryTree<Integer> linked = new LinkedBinaryTree<>();
+        Position<Integer> deepest = linked.addRoot(n - 1);
+        LinkedBinaryTree<Integer> empty = new LinkedBinaryTree<>();
+        for (int i = n - 2; i >= 0; i--) {
+            LinkedBinaryTree<Integer> parent = new LinkedBinaryTree<>();
+            parent.addRoot(i);
+            if (i % 2 == 0)
+                parent.attach(parent.root(), linked, empty);
+            else
+                parent.attach(parent.root(), empty, linked);
+            linked = parent;
+        }
+
+        // Test 1: Traversals of the linked tree
+        int k = 0;
+        boolean ordered = true;
+        for (int element : linked.preorderElements())
+            ordered &= element == k++;
+        boolean pass = assertTrue(ordered && k == n, "Deep Trees Test 1: Preorder visited %d nodes in order.", k);
+        k = 0;
+        for (int element : linked.inorderElements()) {
+            ordered &= element == (k < n / 2 ? 2 * k + 1 : 2 * (n - 1 - k)); // odd ascending, then even descending
+            k++;
+        }
+        pass = pass && assertTrue(ordered && k == n, "Deep Trees Test 1: Inorder visited %d nodes in order.", k);
+        k = 0;
+        for (int element : linked.postorderElements())
+            ordered &= element == n - 1 - k++;
+        pass = pass && assertTrue(ordered && k == n, "Deep Trees Test 1: Postorder visited %d nodes in order.", k);
+        k = 0;
+        for (Position<Integer> position : linked.positions())
+            ordered &= position.getElement() == k++;
+        pass = pass && assertTrue(ordered && k == n, "Deep Trees Test 1: Positions visited %d nodes in order.", k);
+        pass = pass && assertTrue(linked.height(linked.root()) == n - 1 && linked.depth(deepest) == n - 1
+                && linked.height(deepest) == 0, "Deep Trees Test 1: Height is %d and depth of the deepest node is %d.",
+                linked.height(linked.root()), linked.depth(deepest));
+        pass = pass && assertTrue(linked.size() == n && linked.totalDepth() == (long) n * (n - 1) / 2,
+                "Deep Trees Test 1: Total depth is %d.", linked.totalDepth());
+
+        // Test 2: Traversals of the array tree inherited from AbstractTree
+        ArrayBinaryTree<Integer> array = new ArrayBinaryTree<>();
+        Position<Integer> arrayDeepest = array.addRoot(0);
+        for (int i = 1; i < n; i++)
+            arrayDeepest = i % 2 == 1 ? array.addLeft(arrayDeepest, i) : array.addRight(arrayDeepest, i);
+        k = 0;
+        for (Position<Integer> position : array.positions())
+            ordered &= position.getElement() == k++;
+        pass = pass && assertTrue(ordered && k == n, "Deep Trees Test 2: Positions visited %d nodes in order.", k);
+        pass = pass && assertTrue(array.height(array.root()) == n - 1 && array.depth(arrayDeepest) == n - 1,
+                "Deep Trees Test 2: Height is %d and depth of the deepest node is %d.", array.height(array.root()),
+                array.depth(arrayDeepest));
+
+        return assertTrue(pass, "All tests for deep trees");
+    }
+
+    /**
+     * Tests for the cached heights and depth statistics of the linked trees.
+     * <p>
+     * 1. Apply random additions, attachments and removals to a
+     * LinkedBinaryTree, and verify the heights, the height of the tree, the
+     * total depth and the average depth against values recomputed from the
+     * depths of all the nodes.
+     * 2. Apply random insertions and removals to a BinarySearchTreeMap, an
+     * AVLTreeMap and an RBTreeMap, whose rotations move the nodes, and to a
+     * map loaded from sorted entries, and verify the same statistics.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testTreeStatistics() {
+        Random random = new Random(24);
+
+        // Test 1: Random updates of a linked tree
+        LinkedBinaryTree<Integer> tree = new LinkedBinaryTree<>();
+        List<Position<Integer>> positions = new ArrayList<>();
+        positions.add(tree.addRoot(0));
+        boolean consistent = true;
+        for (int i = 1; i <= 3000; i++) {
+            int at = random.nextInt(positions.size());
+            Position<Integer> position = positions.get(at);
+            int operation = random.nextInt(4);
+            if (operation == 0 && tree.size() > 1 && tree.numChildren(position) < 2) {
+                tree.remove(position);
+                positions.set(at, positions.get(positions.size() - 1));
+                positions.remove(positions.size() - 1);
+            } else if (operation == 1 && tree.isExternal(position)) {
+                LinkedBinaryTree<Integer> left = new LinkedBinaryTree<>();
+                positions.add(left.addLeft(left.addRoot(i), i));
+                positions.add(left.root());
+                LinkedBinaryTree<Integer> right = new LinkedBinaryTree<>();
+                positions.add(right.addRoot(i));
+                tree.attach(position, left, right);
+            } else if (tree.left(position) == null) {
+                positions.add(tree.addLeft(position, i));
+            } else if (tree.right(position) == null) {
+                positions.add(tree.addRight(position, i));
+            }
+            if (i % 100 == 0)
+                consistent &= statisticsMatch(tree);
+        }
+        boolean pass = assertTrue(consistent, "Tree Statistics Test 1: The statistics of a tree of %d nodes with "
+                + "height %d and average depth %.2f stayed consistent.", tree.size(), tree.height(),
+                tree.averageDepth());
+
+        // Test 2: Random updates of the tree maps
+        List<BinarySearchTreeMap<Integer, Integer>> maps = Arrays.asList(new BinarySearchTreeMap<>(),
+                new AVLTreeMap<>(), new RBTreeMap<>());
+        for (BinarySearchTreeMap<Integer, Integer> map : maps) {
+            consistent = true;
+            for (int i = 1; i <= 3000; i++) {
+                int key = random.nextInt(500);
+                if (random.nextInt(3) == 0)
+                    map.remove(key);
+                else
+                    map.put(key, i);
+                if (i % 100 == 0)
+                    consistent &= statisticsMatch(map);
+            }
+            pass = pass && assertTrue(consistent, "Tree Statistics Test 2: The statistics of the %s of %d entries "
+                    + "with height %d and average depth %.2f stayed consistent.", map.getClass().getSimpleName(),
+                    map.size(), map.height(), map.averageDepth());
+        }
+        AVLTreeMap<Integer, Integer> loaded = BinarySearchTreeMap.fromSorted(maps.get(1).entrySet().iterator(),
+                new AVLTreeMap<>());
+        pass = pass && assertTrue(statisticsMatch(loaded), "Tree Statistics Test 2: The statistics of a loaded map "
+                + "with height %d are consistent.", loaded.height());
+
+        return assertTrue(pass, "All tests for tree statistics");
+    }
+
+    /**
+     * Returns true if the cached heights and depth statistics of a tree match
+     * the values recomputed from the depths of all its nodes.
+     */
+    private static <E> boolean statisticsMatch(LinkedBinaryTree<E> tree) {
+        long totalDepth = 0;
+        int height = 0;
+        boolean heights = true;
+        for (Position<E> position : tree.positions()) {
+            int depth = tree.depth(position);
+            totalDepth += depth;
+            height = Math.max(height, depth);
+            int expected = 0;
+            for (Position<E> child : tree.children(position))
+                expected = Math.max(expected, tree.height(child) + 1);
+            heights &= tree.height(position) == expected;
+        }
+        return heights && tree.height() == height && tree.totalDepth() == totalDepth
+                && Math.abs(tree.averageDepth() - (double) totalDepth / Math.max(tree.size(), 1)) < 1e-9;
+    }
+
+    /**
+     * Tests for the lazy, fail-fast iterators of the trees.
+     * <p>
+     * 1. Take the first element of the iterators of a tree, then set a later
+     * element and verify the iterators see it, as they are views rather than
+     * snapshots.
+     * 2. Modify the structure of a LinkedBinaryTree, an ArrayBinaryTree and an
+     * AVLTreeMap during an iteration and verify the iterators fail fast, while
+     * replacing a value does not.
+     * 3. Verify the element iterator does not support remove.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testTreeIterators() {
+        LinkedBinaryTree<String> linked = new LinkedBinaryTree<>();
+        Position<String> a = linked.addRoot("a");
+        Position<String> b = linked.addLeft(a, "b");
+        Position<String> c = linked.addRight(a, "c");
+        ArrayBinaryTree<String> array = new ArrayBinaryTree<>();
+        Position<String> arrayA = array.addRoot("a");
+        array.addLeft(arrayA, "b");
+        Position<String> arrayC = array.addRight(arrayA, "c");
+
+        // Test 1: The iterators are views of the tree
+        Iterator<String> elements = linked.iterator();
+        Iterator<String> postorder = linked.postorderElements().iterator();
+        Iterator<String> arrayElements = array.iterator();
+        String first = elements.next() + postorder.next() + arrayElements.next();
+        linked.set(c, "C");
+        array.set(arrayC, "C");
+        String rest = elements.next() + elements.next() + postorder.next() + arrayElements.next()
+                + arrayElements.next();
+        boolean pass = assertTrue(first.equals("aba") && rest.equals("bCCbC"),
+                "Tree Iterators Test 1: The iterators returned %s then %s.", first, rest);
+
+        // Test 2: Structural modifications make the iterators fail fast
+        elements = linked.iterator();
+        Iterator<String> inorder = linked.inorderElements().iterator();
+        arrayElements = array.iterator();
+        Iterator<String> arrayInorder = array.inorderElements().iterator();
+        elements.next();
+        linked.addLeft(b, "d");
+        array.addLeft(array.left(arrayA), "d");
+        pass = pass && assertTrue(failsFast(elements) && failsFast(inorder) && failsFast(arrayElements)
+                && failsFast(arrayInorder), "Tree Iterators Test 2: The tree iterators fail fast.");
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 10; i++)
+            map.put(i, i);
+        Iterator<Entry<Integer, Integer>> entries = map.entrySet().iterator();
+        entries.next();
+        map.put(5, -5); // not structural
+        boolean replaced = entries.next().getKey() == 1;
+        map.put(10, 10); // rotates
+        pass = pass && assertTrue(replaced && failsFast(entries),
+                "Tree Iterators Test 2: The map iterator survives a replaced value and fails after an insertion.");
+        entries = map.entrySet().iterator();
+        map.remove(0);
+        pass = pass && assertTrue(failsFast(entries), "Tree Iterators Test 2: The map iterator fails after a removal.");
+
+        // Test 3: The element iterator does not remove
+        boolean rejected = false;
+        try {
+            elements = linked.iterator();
+            elements.next();
+            elements.remove();
+        } catch (UnsupportedOperationException ex) {
+            rejected = true;
+        }
+        pass = pass && assertTrue(rejected && linked.size() == 4,
+                "Tree Iterators Test 3: The element iterator rejects remove.");
+
+        return assertTrue(pass, "All tests for tree iterators");
+    }
+
+    /**
+     * Tests for the spliterator and the parallel reduction of the tree maps.
+     * <p>
+     * 1. Split the entries of an AVLTreeMap and verify the spliterator is
+     * sized, sorted and ordered, and the prefix holds the smaller keys.
+     * 2. Collect the keys with a parallel stream and verify their order.
+     * 3. Reduce the entries with fork-join tasks, counting them and
+     * concatenating their keys, which checks the results are combined in order.
+     * 4. Modify the map during a traversal and verify the spliterator fails
+     * fast.
+     * 5. Count the contacts by communication option in parallel and compare
+     * with a sequential count.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testTreeSpliterator() {
+        int n = 200_000;
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < n; i++)
+            map.put(3 * i, i);
+
+        // Test 1: Split the entries in two
+        Spliterator<Entry<Integer, Integer>> suffix = map.entrySet().spliterator();
+        int expected = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED | Spliterator.ORDERED;
+        boolean pass = assertTrue((suffix.characteristics() & expected) == expected && suffix.estimateSize() == n,
+                "Tree Spliterator Test 1: The spliterator is sized, sorted and ordered.");
+        Spliterator<Entry<Integer, Integer>> prefix = suffix.trySplit();
+        long prefixSize = prefix.estimateSize();
+        int[] last = { -1 };
+        prefix.forEachRemaining(entry -> last[0] = entry.getKey());
+        int[] first = { -1 };
+        suffix.tryAdvance(entry -> first[0] = entry.getKey());
+        pass = pass && assertTrue(prefixSize + suffix.estimateSize() + 1 == n && prefixSize > n / 4
+                && prefixSize < 3 * n / 4 && last[0] < first[0] && first[0] == 3 * prefixSize,
+                "Tree Spliterator Test 1: The prefix has %d entries up to key %d.", prefixSize, last[0]);
+
+        // Test 2: A parallel stream keeps the key order
+        List<Integer> keys = StreamSupport.stream(map.entrySet().spliterator(), true).map(Entry::getKey)
+                .collect(Collectors.toList());
+        boolean ordered = keys.size() == n;
+        for (int i = 0; ordered && i < n; i++)
+            ordered = keys.get(i) == 3 * i;
+        pass = pass && assertTrue(ordered, "Tree Spliterator Test 2: The parallel stream kept %d keys in order.",
+                keys.size());
+
+        // Test 3: Fork-join reduction
+        long count = map.reduce(0L, entry -> 1L, Long::sum);
+        StringBuilder sequential = new StringBuilder();
+        for (Entry<Integer, Integer> entry : map.entrySet())
+            sequential.append(entry.getKey()).append(' ');
+        String concatenated = map.reduce("", entry -> entry.getKey() + " ", String::concat);
+        pass = pass && assertTrue(count == n && concatenated.equals(sequential.toString()),
+                "Tree Spliterator Test 3: The reduction counted %d entries and kept their order.", count);
+
+        // Test 4: The spliterator fails fast
+        Spliterator<Entry<Integer, Integer>> entries = map.entrySet().spliterator();
+        entries.tryAdvance(entry -> { });
+        map.put(-1, -1);
+        boolean failed = false;
+        try {
+            entries.tryAdvance(entry -> { });
+        } catch (ConcurrentModificationException ex) {
+            failed = true;
+        }
+        pass = pass && assertTrue(failed, "Tree Spliterator Test 4: The spliterator fails after an insertion.");
+        entries = map.entrySet().spliterator();
+        failed = false;
+        try {
+            entries.forEachRemaining(entry -> map.remove(map.lastEntry().getKey()));
+        } catch (ConcurrentModificationException ex) {
+            failed = true;
+        }
+        pass = pass && assertTrue(failed, "Tree Spliterator Test 4: The bulk traversal fails after a removal.");
+
+        // Test 5: Count the contacts by communication option
+        ContactsApp app = new ContactsApp();
+        Random random = new Random(23);
+        Communications[] options = Communications.values();
+        long[] counts = new long[options.length];
+        for (int i = 0; i < 20_000; i++) {
+            String[] values = new String[options.length];
+            for (int j = 0; j < options.length; j++) {
+                if (random.nextInt(3) == 0) {
+                    values[j] = "value" + i;
+                    counts[j]++;
+                }
+            }
+            app.contacts.put("Contact, " + i, ContactDetails.of(values));
+        }
+        long[] parallel = app.countCommunications();
+        pass = pass && assertTrue(Arrays.equals(parallel, counts),
+                "Tree Spliterator Test 5: Counted the contacts by option %s.", Arrays.toString(parallel));
+
+        return assertTrue(pass, "All tests for tree spliterators");
+    }
+
+    /**
+     * Tests for the metrics of the tree maps.
+     * <p>
+     * 1. Run operations on an AVLTreeMap before and after enabling its
+     * metrics, and verify only the latter are counted, with their latencies,
+     * comparisons and rotations.
+     * 2. Register the metrics as an MBean, read its attributes and reset it
+     * through the platform MBean server.
+     * 3. Disable the metrics and verify the operations are no longer counted.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testTreeMapMetrics() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 1000; i++)
+            map.put(i, i);
+
+        // Test 1: Count the operations
+        TreeMapMetrics metrics = map.enableMetrics();
+        boolean pass = assertTrue(metrics.getPuts() == 0 && map.enableMetrics() == metrics,
+                "TreeMapMetrics Test 1: The operations before enabling the metrics are not counted.");
+        for (int i = 1000; i < 2000; i++)
+            map.put(i, i); // increasing keys make the tree rotate
+        for (int i = -1; i < 2000; i++)
+            map.get(i);
+        for (int i = 0; i < 500; i++)
+            map.remove(i);
+        long latencies = 0;
+        for (long count : metrics.getGetLatencyHistogram())
+            latencies += count;
+        pass = pass && assertTrue(metrics.getGets() == 2001 && latencies == 2001 && metrics.getPuts() == 1000
+                && metrics.getRemoves() == 500 && metrics.getRotations() > 0,
+                "TreeMapMetrics Test 1: Counted %d gets, %d puts, %d removes and %d rotations.", metrics.getGets(),
+                metrics.getPuts(), metrics.getRemoves(), metrics.getRotations());
+        pass = pass && assertTrue(metrics.getComparisonsPerSearch() >= 1 && metrics.getComparisonsPerSearch() <= 22
+                && metrics.getHeight() == map.height() && metrics.getSize() == 1500,
+                "TreeMapMetrics Test 1: %.2f comparisons per search in a tree of height %d.",
+                metrics.getComparisonsPerSearch(), metrics.getHeight());
+
+        // Test 2: Read the metrics through JMX
+        try {
+            ObjectName name = metrics.register("test");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            long gets = (Long) server.getAttribute(name, "Gets");
+            int height = (Integer) server.getAttribute(name, "Height");
+            server.invoke(name, "reset", null, null);
+            pass = pass && assertTrue(gets == 2001 && height == map.height() && metrics.getGets() == 0,
+                    "TreeMapMetrics Test 2: The MBean %s reported %d gets and was reset.", name, gets);
+            metrics.unregister();
+            pass = pass && assertTrue(!server.isRegistered(name), "TreeMapMetrics Test 2: The MBean was unregistered.");
+        } catch (JMException ex) {
+            pass = assertTrue(false, "TreeMapMetrics Test 2: %s", ex);
+        }
+
+        // Test 3: Disabled metrics
+        map.disableMetrics();
+        map.get(1);
+        map.put(1, 1);
+        pass = pass && assertTrue(map.metrics() == null && metrics.getGets() == 0 && metrics.getPuts() == 0,
+                "TreeMapMetrics Test 3: The operations are not counted once the metrics are disabled.");
+
+        return assertTrue(pass, "All tests for tree map metrics");
+    }
+
+    /**
+     * Returns true if the next call of an iterator throws a
+     * ConcurrentModificationException.
+     */
+    private static boolean failsFast(Iterator<?> iterator) {
+        try {
+            iterator.next();
+        } catch (ConcurrentModificationException ex) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stress Tests for ConcurrentTreeMap.
+     * <p>
+     * 1. Run lookups from a single thread, then from one thread per core while a
+     * writer keeps inserting and removing other keys, and verify every lookup
+     * found its value.
+     * 2. Measure the lookup rate of one reader, then of one reader per core,
+     * while the writer updates the map once per millisecond, and verify on 4
+     * cores or more that the rate grows with the readers, since optimistic
+     * reads do not contend for the lock. Smaller machines only report it.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testConcurrentTreeMap() {
+        ConcurrentTreeMap<Integer, Integer> shared = new ConcurrentTreeMap<>();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            shared.put(i, i);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(2, cores);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        lookupRate(shared, 1, count, 0, failed); // warm up before measuring
+        lookupRate(shared, 1, count, 0, failed);
+        lookupRate(shared, threads, count, 0, failed);
+
+        // Test 1: Every lookup found its value while the writer was running
+        boolean pass = assertTrue(!failed.get() && shared.size() == count,
+                "ConcurrentTreeMap Test 1: %d readers and a writer left %d entries with no failed lookup.",
+                threads, shared.size());
+
+        // Test 2: Lookup rates
+        double singleRate = lookupRate(shared, 1, count, 1_000_000, failed);
+        double sharedRate = lookupRate(shared, threads, count, 1_000_000, failed);
+        pass = pass && assertTrue(!failed.get() && (cores < 4 || sharedRate > 1.2 * singleRate),
+                "ConcurrentTreeMap Test 2: 1 reader made %.0f lookups/ms, %d readers made %.0f lookups/ms "
+                        + "(%.1fx on %d cores%s).", singleRate, threads, sharedRate, sharedRate / singleRate, cores,
+                cores < 4 ? ", not checked below 4 cores" : "");
+
+        return assertTrue(pass, "All tests for ConcurrentTreeMap");
+    }
+
+    /**
+     * Runs lookups of the keys 0 to count - 1 from a number of reader threads,
+     * every fourth one a lowerEntry, while one writer thread inserts and
+     * removes larger keys, and returns the total number of lookups per
+     * millisecond.
+     *
+     * @param shared      The map holding the keys 0 to count - 1 mapped to
+     *                    themselves
+     * @param readers     The number of reader threads
+     * @param count       The number of keys in the map
+     * @param writerPause The nanoseconds the writer waits between updates
+     * @param failed      Set when a lookup did not find the expected value
+     * @return The number of lookups per millisecond of all readers together
+     */
+    private double lookupRate(ConcurrentTreeMap<Integer, Integer> shared, int readers, int count,
+            long writerPause, AtomicBoolean failed) {
+        int lookups = 200000; // lookups per reader
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(readers);
+        AtomicBoolean reading = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; reading.get(); i++) { // keys above count never collide with the readers'
+                shared.put(count + i % 1000, i);
+                shared.remove(count + i % 1000);
+                if (writerPause > 0) {
+                    LockSupport.parkNanos(writerPause);
+                }
+            }
+        });
+        for (int t = 0; t < readers; t++) {
+            long seed = t;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < lookups; i++) {
+                        int key = random.nextInt(count);
+                        if (i % 4 == 3) {
+                            Entry<Integer, Integer> lower = shared.lowerEntry(key);
+                            if (key == 0 ? lower != null : lower == null || lower.getKey() != key - 1) {
+                                failed.set(true);
+                            }
+                            continue;
+                        }
+                        Integer value = shared.get(key);
+                        if (value == null || value != key) {
+                            failed.set(true);
+                        }
+                    }
+                } catch (InterruptedException | RuntimeException ex) {
+                    failed.set(true);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        writer.start();
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            done.await();
+            reading.set(false);
+            writer.join();
+        } catch (InterruptedException ex) {
+            failed.set(true);
+        }
+        double millis = Math.max(1, System.nanoTime() - begin) / 1e6;
+
+        return readers * (double) lookups / millis;
+    }
+
+    /**
+     * Unit Tests for PersistentTreeMap.
+     * <p>
+     * 1. Take a snapshot, then update the map and verify the snapshot still holds
+     * the former entries and rejects updates.
+     * 2. Iterate a snapshot while another thread keeps updating the map.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testPersistentTreeMap() {
+        PersistentTreeMap<Integer, Integer> versions = new PersistentTreeMap<>();
+        int count = 10000;
+        for (int i = 0; i < count; i++) { // sorted input stays balanced
+            versions.put(i, i);
+        }
+
+        // Test 1: A snapshot is not affected by later updates
+        PersistentTreeMap<Integer, Integer> snapshot = versions.snapshot();
+        versions.put(count, count);
+        versions.put(0, -1);
+        versions.remove(1);
+        boolean pass = assertTrue(snapshot.size() == count && snapshot.get(0) == 0 && snapshot.get(1) == 1
+                && snapshot.get(count) == null, "PersistentTreeMap Test 1: The snapshot kept its %d entries.", count);
+        pass = pass && assertTrue(versions.size() == count && versions.get(0) == -1 && versions.get(1) == null
+                && versions.get(count) == count, "PersistentTreeMap Test 1: The map has the updated entries.");
+        boolean rejected = false;
+        try {
+            snapshot.put(1, 1);
+        } catch (UnsupportedOperationException ex) {
+            rejected = true;
+        }
+        pass = pass && assertTrue(rejected, "PersistentTreeMap Test 1: The snapshot rejects updates.");
+
+        // Test 2: Iterate a snapshot while a writer updates the map
+        AtomicBoolean iterating = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; iterating.get(); i++) {
+                versions.remove(i % count);
+                versions.put(i % count, i);
+            }
+        });
+        writer.start();
+        snapshot = versions.snapshot();
+        int listed = 0;
+        int expected = snapshot.firstEntry().getKey();
+        boolean ordered = true;
+        for (int round = 0; round < 20; round++) {
+            for (Entry<Integer, Integer> entry : snapshot.entrySet()) {
+                ordered = ordered && entry.getKey() >= expected;
+                expected = entry.getKey();
+                listed++;
+            }
+            expected = snapshot.firstEntry().getKey();
+        }
+        iterating.set(false);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            ordered = false;
+        }
+        pass = pass && assertTrue(ordered && listed == 20 * snapshot.size(),
+                "PersistentTreeMap Test 2: Listed a snapshot of %d entries 20 times in order during updates.",
+                snapshot.size());
+
+        return assertTrue(pass, "All tests for PersistentTreeMap");
+    }
+
+    /**
+     * Unit tests for the RadixTreeMap: it keeps the entries of a
+     * BinarySearchTreeMap in the same order, and lists the keys starting with a
+     * prefix.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testRadixTreeMap() {
+        String[] lastNames = { "Muir", "Muirhead", "Mui", "Maathai", "Ma", "LaDuke", "La", "", "Shiva", "Sh" };
+        RadixTreeMap<Integer> radix = new RadixTreeMap<>();
+        BinarySearchTreeMap<String, Integer> tree = new AVLTreeMap<>();
+        Random random = new Random(20);
+        for (int i = 0; i < 5000; i++) {
+            String name = lastNames[random.nextInt(lastNames.length)] + ", " + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                radix.remove(name);
+                tree.remove(name);
+            } else {
+                radix.put(name, i);
+                tree.put(name, i);
+            }
+        }
+
+        // Test 1: Same entries in the same order as the tree
+        boolean pass = assertTrue(radix.size() == tree.size() && radix.toString().equals(tree.toString()),
+                "RadixTreeMap Test 1: Listed %d entries in the order of the AVL tree.", radix.size());
+        boolean ranked = true;
+        for (int i = 0; i < 100; i++) {
+            String key = lastNames[random.nextInt(lastNames.length)] + random.nextInt(30);
+            Entry<String, Integer> ceiling = radix.ceilingEntry(key);
+            Entry<String, Integer> treeCeiling = tree.ceilingEntry(key);
+            ranked = ranked && radix.rank(key) == tree.rank(key)
+                    && radix.select(i).getKey().equals(tree.select(i).getKey())
+                    && (ceiling == null ? treeCeiling == null : ceiling.getKey().equals(treeCeiling.getKey()));
+        }
+        pass = pass && assertTrue(ranked, "RadixTreeMap Test 1: The ranks and selected entries match the tree.");
+
+        // Test 2: List the keys starting with a prefix
+        List<String> muirs = new ArrayList<>();
+        for (Entry<String, Integer> entry : radix.prefixMap("Muir"))
+            muirs.add(entry.getKey());
+        List<String> expected = new ArrayList<>();
+        for (Entry<String, Integer> entry : tree.subMap("Muir", "Muis"))
+            expected.add(entry.getKey());
+        pass = pass && assertTrue(muirs.equals(expected) && radix.prefixCount("Muir") == muirs.size()
+                && radix.prefixCount("Mu") > muirs.size() && radix.prefixCount("Muirx") == 0,
+                "RadixTreeMap Test 2: Listed the %d names starting with 'Muir' in order.", muirs.size());
+
+        // Test 3: The contacts of the application can be kept in a radix tree
+        ContactsApp app = new ContactsApp(new RadixTreeMap<>());
+        app.contacts.put("Muir, John", parseCommunications("email: john.muir@sierraclub.org"));
+        app.contacts.put("Muirhead, Ann", parseCommunications("m: 555-0100"));
+        app.contacts.put("Mathai, Wanjira", parseCommunications("l: wanjira-mathai-1b561ab"));
+        String listed = app.listContactsWithPrefix("Muir");
+        pass = pass && assertTrue(listed.indexOf("Muir, John") < listed.indexOf("Muirhead, Ann")
+                && listed.indexOf("Muir, John") > 0 && !listed.contains("Mathai"),
+                "RadixTreeMap Test 3: Searched the contacts by name prefix: %s", listed);
+
+        return assertTrue(pass, "All tests for RadixTreeMap");
+    }
+
+    /**
+     * Unit tests for the ContactStore: contacts survive a restart, through the
+     * log and through a snapshot, a torn log record is dropped, and a snapshot
+     * is loaded into a balanced tree.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testContactStore() {
+        boolean pass = true;
+        File directory = null;
+        try {
+            directory = Files.createTempDirectory("contacts").toFile();
+
+            // Test 1: Changes are recovered from the snapshot and the log
+            BinarySearchTreeMap<String, ContactDetails> saved = new AVLTreeMap<>();
+            ContactStore store = new ContactStore(directory, 1, 4);
+            store.recover(saved);
+            ContactDetails laDuke = parseCommunications("li: winona-laduke-71861818")
+                    .with(ContactsApp.Communications.WEBSITE, "https://en.wikipedia.org/wiki/Winona_LaDuke");
+            String[] names = { "Muir, John", "Shiva, Vandana", "LaDuke, Winona", "Ceesay, Isatou" };
+            List<ContactDetails> coms = Arrays.asList(
+                    parseCommunications("email: john.muir@sierraclub.org, linkedin: johnmuir"),
+                    parseCommunications("web: vandanashiva.com"), laDuke,
+                    parseCommunications("linkedin: isatou-ceesay-4a837216"));
+            for (int i = 0; i < names.length; i++) {
+                store.logPut(names[i], coms.get(i));
+                saved.put(names[i], coms.get(i));
+            }
+            boolean compacted = store.compactionDue();
+            store.compact(saved);
+            store.logRemove(names[0]);
+            saved.remove(names[0]);
+            store.logPut(names[1], coms.get(3));
+            saved.put(names[1], coms.get(3));
+            store.close();
+
+            BinarySearchTreeMap<String, ContactDetails> recovered = new AVLTreeMap<>();
+            store = new ContactStore(directory, 1, 4);
+            int replayed = store.recover(recovered);
+            pass = assertTrue(compacted && replayed == 2 && recovered.toString().equals(saved.toString()),
+                    "ContactStore Test 1: Recovered %d contacts after replaying %d logged changes: %s",
+                    recovered.size(), replayed, recovered);
+            store.close();
+
+            // Test 2: A torn record at the end of the log is dropped, and logging resumes after it
+            File log = new File(directory, "contacts.log");
+            try (FileOutputStream torn = new FileOutputStream(log, true)) {
+                torn.write(new byte[] { 0, 0, 0, 40, 'P', 0, 9, 'M' }); // a record cut short by a crash
+            }
+            recovered = new AVLTreeMap<>();
+            store = new ContactStore(directory, 0, 100);
+            replayed = store.recover(recovered);
+            store.logPut(names[0], coms.get(0));
+            saved.put(names[0], coms.get(0));
+            store.close();
+            recovered = new AVLTreeMap<>();
+            store = new ContactStore(directory, 0, 100);
+            replayed = store.recover(recovered);
+            store.close();
+            pass = pass && assertTrue(replayed == 3 && recovered.toString().equals(saved.toString()),
+                    "ContactStore Test 2: Dropped the torn record and recovered %d contacts.", recovered.size());
+
+            // Test 3: A snapshot of many contacts is loaded into a balanced tree
+            store = new ContactStore(directory, 0, 100);
+            store.recover(new AVLTreeMap<>());
+            for (int i = 0; i < 5000; i++) {
+                saved.put(String.format("Contact %05d, Number", i),
+                        parseCommunications("mobile: " + i + ", email: contact" + i + "@example.com"));
+            }
+            store.compact(saved);
+            store.close();
+            recovered = new AVLTreeMap<>();
+            store = new ContactStore(directory, 0, 100);
+            replayed = store.recover(recovered);
+            store.close();
+            int height = recovered.height(recovered.root());
+            pass = pass && assertTrue(replayed == 0 && recovered.toString().equals(saved.toString()) && height == 12,
+                    "ContactStore Test 3: Loaded %d contacts from the snapshot into a tree of height %d.",
+                    recovered.size(), height);
+        } catch (IOException ex) {
+            pass = assertTrue(false, "ContactStore: %s", ex);
+        } finally {
+            if (directory != null) {
+                File[] files = directory.listFiles();
+                for (File file : files == null ? new File[0] : files)
+                    file.delete();
+                directory.delete();
+            }
+        }
+
+        return assertTrue(pass, "All tests for ContactStore");
+    }
+
+    /**
+     * Unit tests for the ContactImporter: CSV and vCard files are imported with
+     * quoted fields, duplicates and rejected records, and the CSV headers of
+     * Outlook and Google exports are recognized.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testContactImporter() {
+        boolean pass = true;
+        File csv = null;
+        File vcard = null;
+        try {
+            csv = File.createTempFile("contacts", ".csv");
+            Files.write(csv.toPath(), Arrays.asList(
+                    "Last Name,First Name,Email,Mobile,Website,Notes",
+                    "Muir,John,john.muir@sierraclub.org,,,",
+                    "Wathuti,Elizabeth,lizwathuti@gmail.com,,linktr.ee/lizwathuti,\"climate, youth\"",
+                    "LaDuke,Winona,,,\"https://en.wikipedia.org/wiki/Winona_LaDuke\",\"two",
+                    "lines\"",
+                    ",Nobody,nobody@example.com,,,",
+                    "Muir,John,,555-1838,,"));
+            vcard = File.createTempFile("contacts", ".vcf");
+            Files.write(vcard.toPath(), Arrays.asList(
+                    "BEGIN:VCARD", "VERSION:3.0", "N:Maathai;Wangari;;;", "TEL;TYPE=cell:44-023-233-2323",
+                    "X-SOCIALPROFILE;TYPE=linkedin:wanjira-mathai-1b561ab", "END:VCARD",
+                    "BEGIN:VCARD", "VERSION:3.0", "N:Shiva;Vandana;;;", "URL:https://vandana",
+                    " shiva.com", "END:VCARD",
+                    "BEGIN:VCARD", "VERSION:3.0", "FN:No Name", "END:VCARD"));
+
+            BinarySearchTreeMap<String, ContactDetails> imported = new AVLTreeMap<>();
+            int[] batches = new int[1];
+            ContactImporter.ContactWriter writer = new ContactImporter.ContactWriter() {
+                public void put(String name, ContactDetails communications) {
+                    imported.put(name, communications);
+                }
+
+                public void endBatch() {
+                    batches[0]++;
+                }
+            };
+            ContactImporter importer = new ContactImporter(2);
+
+            // Test 1: Import a CSV file
+            ContactImporter.Result result = importer.importFile(csv.toPath(), writer);
+            pass = assertTrue(result.records == 5 && result.imported == 3 && result.rejected == 1
+                    && result.duplicates == 1 && batches[0] == 1,
+                    "ContactImporter Test 1: Imported the CSV file: %s", result);
+            pass = pass && assertTrue(imported.get("Muir, John").toString().equals("{MOBILE=555-1838}")
+                    && imported.get("LaDuke, Winona").get(ContactsApp.Communications.WEBSITE)
+                            .equals("https://en.wikipedia.org/wiki/Winona_LaDuke")
+                    && imported.get("Wathuti, Elizabeth").size() == 2,
+                    "ContactImporter Test 1: The last duplicate and the quoted fields were kept: %s", imported);
+
+            // Test 2: Import a vCard file
+            result = importer.importFile(vcard.toPath(), writer);
+            pass = pass && assertTrue(result.records == 3 && result.imported == 2 && result.rejected == 1
+                    && imported.size() == 5,
+                    "ContactImporter Test 2: Imported the vCard file: %s", result);
+            pass = pass && assertTrue(imported.get("Maathai, Wangari").get(ContactsApp.Communications.LINKEDIN)
+                    .equals("wanjira-mathai-1b561ab")
+                    && imported.get("Shiva, Vandana").get(ContactsApp.Communications.WEBSITE)
+                            .equals("https://vandanashiva.com"),
+                    "ContactImporter Test 2: The vCard properties were kept: %s", imported);
+
+            // Test 3: Import the headers of Outlook and Google exports
+            Files.write(csv.toPath(), Arrays.asList(
+                    "First Name,Middle Name,Last Name,E-mail Address,Mobile Phone,Web Page,Categories",
+                    "Greta,Tintin Eleonora,Thunberg,greta@fridays.org,,fridaysforfuture.org,Climate"));
+            result = importer.importFile(csv.toPath(), writer);
+            pass = pass && assertTrue(result.imported == 1 && imported.get("Thunberg, Greta").toString()
+                    .equals("{EMAIL=greta@fridays.org, WEBSITE=fridaysforfuture.org}"),
+                    "ContactImporter Test 3: The Outlook columns were mapped: %s", imported.get("Thunberg, Greta"));
+            Files.write(csv.toPath(), Arrays.asList(
+                    "Name,Given Name,Family Name,Group Membership,E-mail 1 - Value,Phone 1 - Value",
+                    "Ken Saro-Wiwa,Ken,Saro-Wiwa,* myContacts,ken@mosop.org,+234-1-555"));
+            result = importer.importFile(csv.toPath(), writer);
+            pass = pass && assertTrue(result.imported == 1 && imported.get("Saro-Wiwa, Ken").toString()
+                    .equals("{EMAIL=ken@mosop.org, MOBILE=+234-1-555}"),
+                    "ContactImporter Test 3: The Google columns were mapped: %s", imported.get("Saro-Wiwa, Ken"));
+        } catch (IOException ex) {
+            pass = assertTrue(false, "ContactImporter: %s", ex);
+        } finally {
+            if (csv != null)
+                csv.delete();
+            if (vcard != null)
+                vcard.delete();
+        }
+
+        return assertTrue(pass, "All tests for ContactImporter");
+    }
+
+    /**
+     * Unit tests for the EncodedContactMap: it keeps the alphabetical order of
+     * the names, decodes the dictionary encoded values, and is recovered from a
+     * snapshot.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testEncodedContactMap() {
+        String[] names = { "Li, Bo", "Li!, Al", "Li", "Lim, Ann", "Li, ", "Li,Bo", "Muir, John", "Muir, Johnny",
+                "Mui, Zed", "Muir", "Li, Al" };
+        String[] lastNames = { "Li", "Li!", "Lim", "Mui", "Muir", "Muir, Jr." };
+        EncodedContactMap encoded = new EncodedContactMap();
+        BinarySearchTreeMap<String, ContactDetails> plain = new AVLTreeMap<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            String name = i < names.length ? names[i]
+                    : lastNames[random.nextInt(lastNames.length)] + ", " + names[random.nextInt(names.length)];
+            ContactDetails details = parseCommunications(
+                    "email: " + name.replace(", ", ".") + "@gmail.com, web: site" + i + ".org");
+            encoded.put(name, details);
+            plain.put(name, details);
+        }
+
+        // Test 1: The names are listed in the order of the plain map
+        List<String> encodedKeys = new ArrayList<>();
+        encoded.keySet().forEach(encodedKeys::add);
+        List<String> plainKeys = new ArrayList<>();
+        plain.keySet().forEach(plainKeys::add);
+        boolean pass = assertTrue(encodedKeys.equals(plainKeys) && encoded.toString().equals(plain.toString()),
+                "EncodedContactMap Test 1: Listed %d names in alphabetical order, starting with %s.",
+                encoded.size(), encodedKeys.subList(0, 6));
+        List<String> prefixed = new ArrayList<>();
+        for (Entry<String, ContactDetails> entry : encoded.subMap("Li, ", "Li,!"))
+            prefixed.add(entry.getKey());
+        pass = pass && assertTrue(prefixed.get(0).equals("Li, ") && prefixed.contains("Li, Bo")
+                && !prefixed.contains("Li") && !prefixed.contains("Li!, Al")
+                && encoded.ceilingEntry("Li!").getKey().equals(plain.ceilingEntry("Li!").getKey()),
+                "EncodedContactMap Test 1: Found %d names starting with 'Li, '.", prefixed.size());
+
+        // Test 2: The values are shared and decoded
+        ContactDictionary dictionary = encoded.dictionary();
+        ContactDetails muir = encoded.get("Muir, John");
+        ContactDetails odd = parseCommunications("email: a\0b@x, mobile: 555\0");
+        encoded.put("Odd, Value", odd);
+        pass = pass && assertTrue(muir.get(ContactsApp.Communications.EMAIL).equals("Muir.John@gmail.com")
+                && muir.equals(plain.get("Muir, John")) && encoded.get("Odd, Value").equals(odd)
+                && dictionary.suffixCount() == 2 && dictionary.nameCount() < encoded.size() / 2,
+                "EncodedContactMap Test 2: Decoded %s with %d suffixes and %d name components.", muir,
+                dictionary.suffixCount(), dictionary.nameCount());
+        encoded.remove("Odd, Value");
+
+        // Test 3: A snapshot is recovered into an encoded map
+        File directory = null;
+        try {
+            directory = Files.createTempDirectory("contacts").toFile();
+            ContactStore store = new ContactStore(directory, 0, 100);
+            store.recover(new AVLTreeMap<>());
+            store.compact(plain);
+            store.close();
+            EncodedContactMap recovered = new EncodedContactMap();
+            store = new ContactStore(directory, 0, 100);
+            store.recover(recovered);
+            store.close();
+            pass = pass && assertTrue(recovered.toString().equals(plain.toString()),
+                    "EncodedContactMap Test 3: Recovered %d contacts from a snapshot.", recovered.size());
+        } catch (IOException ex) {
+            pass = assertTrue(false, "EncodedContactMap: %s", ex);
+        } finally {
+            if (directory != null) {
+                for (File file : directory.listFiles())
+                    file.delete();
+                directory.delete();
+            }
+        }
+
+        return assertTrue(pass, "All tests for EncodedContactMap");
+    }
+
+    /**
+     * Unit tests for the ContactIndex: contacts are found by communication
+     * value, and the indexes follow every change of the contacts.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testContactIndex() {
+        ContactsApp app = new ContactsApp();
+        boolean pass = true;
+        try {
+            app.putContact("Muir, John", parseCommunications("email: John.Muir@sierraclub.org, m: 805-899-8899"));
+            app.putContact("Muir, Louie", parseCommunications("mobile: +1 805 899 8899"));
+            app.putContact("Muir, Ann", parseCommunications("m: 805-899-8899, github: annmuir"));
+
+            // Test 1: Find the owners of a value
+            String owners = app.listContactsWithCommunication("john.muir@SIERRACLUB.org");
+            pass = assertTrue(owners.contains("Muir, John (EMAIL)") && !owners.contains("Ann"),
+                    "ContactIndex Test 1: Found the owner of an email: %s", owners);
+            pass = pass && assertTrue(app.index.owners(Communications.MOBILE, "(805) 899-8899")
+                    .equals(Arrays.asList("Muir, Ann", "Muir, John"))
+                    && app.index.owners(Communications.MOBILE, "+18058998899").equals(Arrays.asList("Muir, Louie"))
+                    && app.index.owners(Communications.GITHUB, "annmui").isEmpty(),
+                    "ContactIndex Test 1: Found the owners of a shared phone number in alphabetical order.");
+
+            // Test 2: The indexes follow updates and removals
+            app.putContact("Muir, John", parseCommunications("email: john@muir.org, m: 805-899-8899"));
+            app.deleteContact("Muir, Ann");
+            pass = pass && assertTrue(app.index.owners(Communications.EMAIL, "john.muir@sierraclub.org").isEmpty()
+                    && app.index.owners(Communications.EMAIL, "john@muir.org").equals(Arrays.asList("Muir, John"))
+                    && app.index.owners(Communications.MOBILE, "805-899-8899").equals(Arrays.asList("Muir, John"))
+                    && app.index.size(Communications.GITHUB) == 0,
+                    "ContactIndex Test 2: The indexes follow the updated and removed contacts.");
+
+            // Test 3: After random changes the indexes match indexes built from scratch
+            Random random = new Random(18);
+            for (int i = 0; i < 2000; i++) {
+                String name = "Contact, " + random.nextInt(200);
+                if (random.nextInt(4) == 0) {
+                    app.deleteContact(name);
+                } else {
+                    app.putContact(name, parseCommunications("email: user" + random.nextInt(50) + "@example.com, m: "
+                            + random.nextInt(50) + (random.nextBoolean() ? ", g: dev" + random.nextInt(50) : "")));
+                }
+            }
+            ContactIndex rebuilt = new ContactIndex(app.contacts.entrySet());
+            boolean same = true;
+            for (Communications option : Communications.values()) {
+                same = same && rebuilt.size(option) == app.index.size(option)
+                        && app.index.height(option) <= 1.45 * Math.log(app.index.size(option) + 2) / Math.log(2);
+            }
+            for (int i = 0; i < 50; i++) {
+                same = same && rebuilt.owners(Communications.EMAIL, "user" + i + "@example.com")
+                        .equals(app.index.owners(Communications.EMAIL, "user" + i + "@example.com"))
+                        && rebuilt.owners(Communications.MOBILE, "" + i)
+                                .equals(app.index.owners(Communications.MOBILE, "" + i));
+            }
+            pass = pass && assertTrue(same, "ContactIndex Test 3: The indexes of %d contacts match after 2000 changes.",
+                    app.contacts.size());
+        } catch (IOException ex) {
+            pass = assertTrue(false, "ContactIndex: %s", ex);
+        }
+
+        return assertTrue(pass, "All tests for ContactIndex");
+    }
+
+    /**
+     * Unit tests for the ContactSearchIndex: contacts are found by any part of
+     * their name and communications, with typos, ranked, and the index follows
+     * every change of the contacts.
+     *
+     * @return true when all tests pass.
+     */
+    private boolean testContactSearchIndex() {
+        ContactsApp app = new ContactsApp();
+        boolean pass = true;
+        try {
+            app.putContact("Muir, John", parseCommunications("email: john.muir@sierraclub.org, m: 805-899-8899"));
+            app.putContact("Muir, Louie", parseCommunications("mobile: +1 805 555 0199"));
+            app.putContact("Mathai, Wanjira", parseCommunications("l: wanjira-mathai-1b561ab"));
+            app.putContact("Sierra, Club", parseCommunications("website: sierraclub.org"));
+
+            // Test 1: Find contacts by names, values, typos and digits
+            String found = app.listSearchedContacts("MUIR");
+            pass = assertTrue(found.contains("Muir, John") && found.contains("Muir, Louie")
+                    && !found.contains("Mathai"), "ContactSearchIndex Test 1: Found the Muirs: %s", found);
+            List<ContactSearchIndex.Match> matches = app.searchIndex.search("sierraclob", 10);
+            pass = pass && assertTrue(matches.size() == 2 && matches.get(0).score == 6,
+                    "ContactSearchIndex Test 1: Found %s despite a typo.", matches);
+            matches = app.searchIndex.search("8998", 10);
+            pass = pass && assertTrue(matches.size() == 1 && matches.get(0).name.equals("Muir, John")
+                    && app.searchIndex.search("mathai 1b561", 10).get(0).name.equals("Mathai, Wanjira"),
+                    "ContactSearchIndex Test 1: Found %s by a few digits of a phone number.", matches);
+            matches = app.searchIndex.search("john muir sierra", 10);
+            pass = pass && assertTrue(matches.get(0).name.equals("Muir, John") && matches.get(0).score == 8
+                    && matches.size() == 1, "ContactSearchIndex Test 1: Ranked the matches: %s", matches);
+
+            // Test 2: The index follows updates and removals
+            app.putContact("Muir, John", parseCommunications("email: john@muir.org"));
+            app.deleteContact("Muir, Louie");
+            pass = pass && assertTrue(app.searchIndex.search("8998", 10).isEmpty()
+                    && app.searchIndex.search("muir", 10).size() == 1 && app.searchIndex.size() == 3
+                    && app.searchIndex.search("muir.org", 10).get(0).name.equals("Muir, John"),
+                    "ContactSearchIndex Test 2: The index follows the updated and removed contacts.");
+
+            // Test 3: After random changes the index matches an index built from scratch
+            Random random = new Random(19);
+            for (int i = 0; i < 2000; i++) {
+                String name = "Contact, Number" + random.nextInt(300);
+                if (random.nextInt(4) == 0) {
+                    app.deleteContact(name);
+                } else {
+                    app.putContact(name, parseCommunications("email: user" + random.nextInt(100) + "@example.com, m: "
+                            + random.nextInt(100000)));
+                }
+            }
+            ContactSearchIndex rebuilt = new ContactSearchIndex(app.contacts.entrySet());
+            boolean same = rebuilt.size() == app.searchIndex.size();
+            for (int i = 0; i < 100; i++) {
+                String query = random.nextBoolean() ? "user" + i + "@exampel" : "" + random.nextInt(100000);
+                same = same && rebuilt.search(query, 10).toString().equals(app.searchIndex.search(query, 10).toString());
+            }
+            pass = pass && assertTrue(same,
+                    "ContactSearchIndex Test 3: The index of %d contacts matches after 2000 changes.",
+                    app.contacts.size());
+        } catch (IOException ex) {
+            pass = assertTrue(false, "ContactSearchIndex: %s", ex);
+        }
+
+        return assertTrue(pass, "All tests for ContactSearchIndex");
+    }
+
     /**
      * Unit Tests for menu selections. All output is clean and legible.
      *
@@ -239,6 +1827,22 @@ public class ContactsApp {
         pass = pass && assertTrue(contacts.get(johnMuirName) == null,
                 "Contact %s was removed.", johnMuirName);
 
+        // Test: Search contacts by name prefix
+        String maContacts = listContactsWithPrefix("Ma");
+        pass = pass && assertTrue(maContacts.contains("Maathai, Wangari") && !maContacts.contains("LaDuke"),
+                "Contacts starting with 'Ma': %s", maContacts);
+        String lastName = "\uFFFF\uFFFF, Max";
+        contacts.put(lastName, parseCommunications(coms[0]));
+        String maxContacts = listContactsWithPrefix("\uFFFF");
+        contacts.remove(lastName);
+        pass = pass && assertTrue(maxContacts.contains(lastName) && !maxContacts.contains("Shiva"),
+                "Contacts starting with '\\uFFFF': %s", maxContacts);
+
+        // Test: List a page of contacts
+        String secondPage = listAllContactNames(2, 2);
+        pass = pass && assertTrue(secondPage.contains("LaDuke, Winona") && secondPage.contains("Maathai, Wangari")
+                && !secondPage.contains("Shiva"), "Page of 2 contacts at offset 2: %s", secondPage);
+
         // Test: Form 1: List all information for all contacts
         pass = pass && assertTrue(contacts.toString().length() > 300,
                 "Form 1: Raw list has expected length: %d. Content: %n%s", contacts.toString().length(),
@@ -278,8 +1882,12 @@ public class ContactsApp {
         System.out.println("4 - List all information for all contacts");
         System.out.println("5 - List all contact names");
         System.out.println("6 - List all contact communications");
+        System.out.println("7 - Search contacts by name prefix");
+        System.out.println("8 - Find the contacts owning an email, phone number or handle");
+        System.out.println("9 - Search contacts by any part of their name or communications");
+        System.out.println("10 - Count the contacts having each communication");
         System.out.println("---");
-        System.out.println("7 - End this contact manager session.");
+        System.out.println("11 - End this contact manager session.");
 
         System.out.print("\nMenu choice: ");
     }
@@ -293,6 +1901,7 @@ public class ContactsApp {
             Scanner input = new Scanner(System.in);
 
             int selection = 0;
+            int offset;
             try {
                 selection = input.nextInt();
                 input.nextLine(); // Consume the enter key after the number
@@ -313,25 +1922,79 @@ public class ContactsApp {
                     removeContact(input);
                     break;
                 case 4:
-                    // List all information for all contacts
-                    System.out.println(listAllContacts());
+                    // List all information for all contacts, one page at a time
+                    offset = promptPageOffset(input);
+                    System.out.println(listAllContacts(offset, PAGE_SIZE));
                     break;
                 case 5:
-                    // List all contact names
-                    System.out.println(listAllContactNames());
+                    // List all contact names, one page at a time
+                    offset = promptPageOffset(input);
+                    System.out.println(listAllContactNames(offset, PAGE_SIZE));
                     break;
                 case 6:
-                    // List all contact communications
-                    System.out.println(listAllContactCommunications());
+                    // List all contact communications, one page at a time
+                    offset = promptPageOffset(input);
+                    System.out.println(listAllContactCommunications(offset, PAGE_SIZE));
                     break;
                 case 7:
+                    // Search contacts by the beginning of their name
+                    searchByPrefix(input);
+                    break;
+                case 8:
+                    // Find the contacts having a communication value
+                    searchByCommunication(input);
+                    break;
+                case 9:
+                    // Fuzzy search of the names and communications
+                    searchContacts(input);
+                    break;
+                case 10:
+                    // Count the contacts by communication option, in parallel
+                    System.out.println(listCommunicationCounts());
+                    break;
+                case 11:
+                    closeStore();
                     System.exit(0);
                 default:
-                    System.out.println("Select a menu choice from 1 to 7.");
+                    System.out.println("Select a menu choice from 1 to 11.");
             }
         }
     }
 
+    /**
+     * Forces the pending changes to the store, if any, and closes it.
+     */
+    private void closeStore() {
+        if (store == null)
+            return;
+        try {
+            store.close();
+        } catch (IOException ex) {
+            System.out.format("The contact store could not be closed: %s%n", ex.getMessage());
+        }
+    }
+
+    /**
+     * Prompt user for the page of contacts to list.
+     *
+     * @param input The input console stream
+     * @return The index of the first contact of the page. Returns 0 for the first
+     *         page if the page number is blank or invalid, and the last page if
+     *         the page number is past it.
+     */
+    private int promptPageOffset(Scanner input) {
+        int pages = Math.max(1, (contacts.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        System.out.format("  Page number (1-%d, %d contacts per page): ", pages, PAGE_SIZE);
+        String page = input.nextLine().trim();
+        try {
+            long number = page.isEmpty() ? 1 : Math.min(Math.max(1, Long.parseLong(page)), pages);
+            return (int) (number - 1) * PAGE_SIZE; // at most the last page, so it does not overflow
+        } catch (NumberFormatException ex) {
+            System.out.format("The page number '%s' was invalid, showing the first page.%n", page);
+            return 0;
+        }
+    }
+
     /**
      * Prompt user for a contact name and either show the information of the found
      * contact or report the contact
@@ -354,6 +2017,155 @@ public class ContactsApp {
         }
     }
 
+    /**
+     * Prompt user for the beginning of a contact name, typically a partial last
+     * name, and show all the contacts whose name starts with it.
+     *
+     * @param input The input console stream
+     */
+    private void searchByPrefix(Scanner input) {
+        System.out.println("Search contacts by name prefix:");
+        System.out.print("  Name prefix: ");
+        String prefix = input.nextLine().trim();
+        if (prefix.isEmpty()) {
+            System.out.println("The name prefix was invalid.");
+            return;
+        }
+        System.out.println(listContactsWithPrefix(prefix));
+    }
+
+    /**
+     * Prompt user for a communication value, such as an email address or a
+     * phone number, and show the contacts having it for any option.
+     *
+     * @param input The input console stream
+     */
+    private void searchByCommunication(Scanner input) {
+        System.out.println("Find the contacts owning a communication value:");
+        System.out.print("  Email, phone number or handle: ");
+        String value = input.nextLine().trim();
+        if (value.isEmpty()) {
+            System.out.println("The communication value was invalid.");
+            return;
+        }
+        System.out.println(listContactsWithCommunication(value));
+    }
+
+    /**
+     * A formatted string for the console containing the contacts having the
+     * given value for any communication option, found through the indexes by
+     * communication value, which are built on the first call.
+     *
+     * @param value The communication value
+     * @return A string containing the list of the owners of the value.
+     */
+    private String listContactsWithCommunication(String value) {
+        if (index == null)
+            index = new ContactIndex(contacts.entrySet());
+        StringBuilder text = new StringBuilder(String.format("%nContacts Owning '%s'%n------------%n", value));
+        String separator = "";
+        for (Communications option : Communications.values()) {
+            for (String name : index.owners(option, value)) {
+                text.append(separator).append(name).append(" (").append(option).append("): ")
+                        .append(contacts.get(name));
+                separator = "\n";
+            }
+        }
+        if (separator.isEmpty())
+            text.append("No contact found.");
+        return text.append("\n").toString();
+    }
+
+    /**
+     * Prompt user for words to search in the names and communications of the
+     * contacts, and show the best matches.
+     *
+     * @param input The input console stream
+     */
+    private void searchContacts(Scanner input) {
+        System.out.println("Search contacts:");
+        System.out.print("  Words to search (3 characters or more): ");
+        String query = input.nextLine().trim();
+        if (query.length() < 3) {
+            System.out.println("The search words were invalid.");
+            return;
+        }
+        System.out.println(listSearchedContacts(query));
+    }
+
+    /**
+     * A formatted string for the console containing the contacts best matching
+     * the given words, found through the trigram index, which is built on the
+     * first call.
+     *
+     * @param query The words to search
+     * @return A string containing the ranked list of the matches.
+     */
+    private String listSearchedContacts(String query) {
+        if (searchIndex == null)
+            searchIndex = new ContactSearchIndex(contacts.entrySet());
+        StringBuilder text = new StringBuilder(String.format("%nContacts Matching '%s'%n------------%n", query));
+        String separator = "";
+        for (ContactSearchIndex.Match match : searchIndex.search(query, SEARCH_LIMIT)) {
+            text.append(separator).append(match).append(": ").append(contacts.get(match.name));
+            separator = "\n";
+        }
+        if (separator.isEmpty())
+            text.append("No contact found.");
+        return text.append("\n").toString();
+    }
+
+    /**
+     * Returns the contacts whose name starts with the given prefix, in
+     * alphabetical order. The names starting with a prefix form the key range
+     * from the prefix up to the prefix with its last character incremented, so
+     * only that range of the tree is visited. A prefix made only of the
+     * character Character.MAX_VALUE has no such bound, so the names are then walked up
+     * from the prefix until one does not start with it. A RadixTreeMap walks
+     * the subtree of the prefix directly.
+     *
+     * @param prefix The non-empty beginning of the contact names
+     * @return The contacts whose name starts with the prefix
+     */
+    private Iterable<Entry<String, ContactDetails>> contactsWithPrefix(String prefix) {
+        if (contacts instanceof RadixTreeMap) {
+            return ((RadixTreeMap<ContactDetails>) contacts).prefixMap(prefix);
+        }
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) { // no character follows the maximum
+            end--;
+        }
+        if (end > 0) {
+            String upperBound = prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+            return contacts.subMap(prefix, upperBound);
+        }
+        // no upper bound: walk up from the prefix while the names still start with it
+        List<Entry<String, ContactDetails>> matches = new ArrayList<>();
+        for (Entry<String, ContactDetails> entry = contacts.ceilingEntry(prefix);
+                entry != null && entry.getKey().startsWith(prefix); entry = contacts.higherEntry(entry.getKey())) {
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    /**
+     * A formatted string for the console containing the contacts whose name
+     * starts with the given prefix, in alphabetical order with their associated
+     * communication options.
+     *
+     * @param prefix The non-empty beginning of the contact names
+     * @return A string containing the list of the matching contacts.
+     */
+    private String listContactsWithPrefix(String prefix) {
+        StringBuilder text = new StringBuilder(String.format("%nContacts Starting With '%s'%n------------%n", prefix));
+        String separator = "";
+        for (Entry<String, ContactDetails> entry : contactsWithPrefix(prefix)) {
+            text.append(separator).append(entry.getKey()).append(": ").append(entry.getValue());
+            separator = "\n";
+        }
+        return text.append("\n").toString();
+    }
+
     /**
      * Prompt user for a contact name and contact information. If the contact
      * exists, user is prompted to confirm
@@ -372,23 +2184,27 @@ public class ContactsApp {
         System.out.print("  Communication options: ");
         String coms = input.nextLine().trim();
 
-        HashMap<Communications, String> comsCollection;
+        ContactDetails comsCollection;
         try {
             comsCollection = parseCommunications(String.join(", ", coms));
         } catch (IllegalArgumentException ex) {
             System.out.format("Media option in '%s' not recognized.%n", coms);
             return;
         }
-        if (contacts.get(name) == null) { // check if value is null
-            contacts.put(name, comsCollection); // add entry (name and communication details) to the contacts
-            System.out.format("Contact added: %s: %s.%n", name, comsCollection);
-        } else {
-            System.out.println("Update existing contact(y/n): "); // ask for user input
-            String overwrite = input.nextLine().trim(); // scan in user input into a string
-            if (overwrite.trim().toUpperCase().charAt(0) == 'Y') { // check if user chose yes or no
-                contacts.put(name, comsCollection); // update contact information
-                System.out.format("Contact Updated: %s: %s.%n", name, comsCollection);
+        try {
+            if (contacts.get(name) == null) { // check if value is null
+                putContact(name, comsCollection); // add entry (name and communication details) to the contacts
+                System.out.format("Contact added: %s: %s.%n", name, comsCollection);
+            } else {
+                System.out.println("Update existing contact(y/n): "); // ask for user input
+                String overwrite = input.nextLine().trim(); // scan in user input into a string
+                if (overwrite.trim().toUpperCase().charAt(0) == 'Y') { // check if user chose yes or no
+                    putContact(name, comsCollection); // update contact information
+                    System.out.format("Contact Updated: %s: %s.%n", name, comsCollection);
+                }
             }
+        } catch (IOException ex) {
+            System.out.format("The contact '%s' could not be saved: %s%n", name, ex.getMessage());
         }
     }
 
@@ -409,8 +2225,12 @@ public class ContactsApp {
         if (contacts.get(name) == null) { // check if value is null
             System.out.format("No contact entry found for '%s'.%n", name);
         } else {
-            contacts.remove(name); // remove the values assiocated with name in the hashmap
-            System.out.format("The Contact '%s' has been removed.%n", name);
+            try {
+                deleteContact(name); // remove the values assiocated with name in the hashmap
+                System.out.format("The Contact '%s' has been removed.%n", name);
+            } catch (IOException ex) {
+                System.out.format("The contact '%s' could not be removed: %s%n", name, ex.getMessage());
+            }
         }
     }
 
@@ -423,17 +2243,27 @@ public class ContactsApp {
      *         order.
      */
     private String listAllContacts() {
-        List<String> elementsAsText = new ArrayList<>(contacts.size());
+        return listAllContacts(0, Integer.MAX_VALUE);
+    }
 
-        for (Entry<String, HashMap<ContactsApp.Communications, String>> entry : contacts.entrySet()) {
-            elementsAsText.add(String.format("%s: %s", entry.getKey(), entry.getValue()));
+    /**
+     * A formatted string for the console containing one page of the list of the
+     * contact names in alphabetical order with their associated communication
+     * options.
+     *
+     * @param offset The index of the first contact of the page
+     * @param limit  The maximum number of contacts in the page
+     * @return A string containing the page of the contact names in alphabetical
+     *         order.
+     */
+    private String listAllContacts(int offset, int limit) {
+        StringBuilder text = new StringBuilder("\nAll Contacts\n------------\n");
+        String separator = "";
+        for (Entry<String, ContactDetails> entry : contacts.page(offset, limit)) {
+            text.append(separator).append(entry.getKey()).append(": ").append(entry.getValue());
+            separator = "\n"; // no extra separator at the end
         }
-        // Return results without extra comma at end
-        return "\n" +
-                "All Contacts" + "\n" +
-                "------------" + "\n" +
-                String.join("\n", elementsAsText) +
-                "\n";
+        return text.append("\n").toString();
     }
 
     /**
@@ -444,11 +2274,26 @@ public class ContactsApp {
      *         order.
      */
     private String listAllContactNames() {
-        return "\n" +
-                "All Contacts Names" + "\n" +
-                "------------" + "\n" +
-                String.join("\n", contacts.keySet()) +
-                "\n"; // tranform entire keyset into a string
+        return listAllContactNames(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A formatted string for the console containing one page of the list of the
+     * contact names in alphabetical order.
+     *
+     * @param offset The index of the first contact of the page
+     * @param limit  The maximum number of contacts in the page
+     * @return A string containing the page of the contact names in alphabetical
+     *         order.
+     */
+    private String listAllContactNames(int offset, int limit) {
+        StringBuilder text = new StringBuilder("\nAll Contacts Names\n------------\n");
+        String separator = "";
+        for (Entry<String, ContactDetails> entry : contacts.page(offset, limit)) {
+            text.append(separator).append(entry.getKey());
+            separator = "\n";
+        }
+        return text.append("\n").toString();
     }
 
     /**
@@ -459,15 +2304,56 @@ public class ContactsApp {
      *         order.
      */
     private String listAllContactCommunications() {
-        List<String> elementsAsText = new ArrayList<>(contacts.size()); // create an arrayList
-        for (HashMap<ContactsApp.Communications, String> map : contacts.values()) { // loop over the values in contacts
-            elementsAsText.add(String.format("%s", map.toString())); // add each element in the arrayList
+        return listAllContactCommunications(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A formatted string for the console containing one page of the list of the
+     * contact communications, ordered by contact name.
+     *
+     * @param offset The index of the first contact of the page
+     * @param limit  The maximum number of contacts in the page
+     * @return A string containing the page of the contact communications.
+     */
+    private String listAllContactCommunications(int offset, int limit) {
+        StringBuilder text = new StringBuilder("\nAll Contacts Communications\n------------\n");
+        String separator = "";
+        for (Entry<String, ContactDetails> entry : contacts.page(offset, limit)) {
+            text.append(separator).append(entry.getValue());
+            separator = "\n";
         }
-        return "\n" +
-                "All Contacts Communications" + "\n" +
-                "------------" + "\n" +
-                String.join("\n", elementsAsText) +
-                "\n";
+        return text.append("\n").toString();
+    }
+
+    /**
+     * Returns the number of contacts having each communication option, by
+     * ordinal. The contacts are counted by a parallel stream, which splits the
+     * tree maps by subtrees across the cores.
+     */
+    long[] countCommunications() {
+        int options = Communications.values().length;
+        return StreamSupport.stream(contacts.entrySet().spliterator(), true).collect(() -> new long[options],
+                (counts, contact) -> {
+                    for (int mask = contact.getValue().mask(); mask != 0; mask &= mask - 1)
+                        counts[Integer.numberOfTrailingZeros(mask)]++;
+                }, (counts, more) -> {
+                    for (int i = 0; i < options; i++)
+                        counts[i] += more[i];
+                });
+    }
+
+    /**
+     * A formatted string for the console containing the number of contacts
+     * having each communication option.
+     *
+     * @return A string containing the count of every option.
+     */
+    private String listCommunicationCounts() {
+        long[] counts = countCommunications();
+        StringBuilder text = new StringBuilder("\nContacts by Communication\n------------\n");
+        for (Communications option : Communications.values())
+            text.append(option).append(": ").append(counts[option.ordinal()]).append("\n");
+        return text.toString();
     }
 
     /**
@@ -490,7 +2376,7 @@ public class ContactsApp {
      * A list of example communication options that a contact may have. Other
      * options can be added.
      */
-    private enum Communications {
+    enum Communications {
         EMAIL,
         MOBILE,
         GITHUB,
@@ -0,0 +1,237 @@
+import java.util.Iterator;
+
+/**
+ * A sorted map of contacts that stores its names and communication values
+ * through a ContactDictionary. The entries are kept in an AVL tree keyed by
+ * ContactName, whose components are shared between contacts, and the details
+ * are stored encoded, so that a large address book with many repeated last
+ * names, first names and email domains takes less memory.
+ * <p>
+ * The map reads like a map keyed by the "last, first" strings: ContactName
+ * compares as that string, so the entries, pages and name ranges come in the
+ * same alphabetical order, and the keys are returned as strings. Returned
+ * details decode their values on access.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class EncodedContactMap implements SortedMap<String, ContactDetails> {
+
+    /**
+     * The dictionary sharing the names and values.
+     */
+    private final ContactDictionary dictionary;
+
+    /**
+     * The entries keyed by name.
+     */
+    private final AVLTreeMap<ContactName, ContactDetails> map = new AVLTreeMap<>();
+
+    /**
+     * Creates an empty map with its own dictionary.
+     */
+    public EncodedContactMap() {
+        this(new ContactDictionary());
+    }
+
+    /**
+     * Creates an empty map using the given dictionary, which may be shared with
+     * other maps.
+     */
+    public EncodedContactMap(ContactDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns the dictionary of the map.
+     */
+    public ContactDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Starts recording the metrics of the tree of the map, and returns them.
+     */
+    public TreeMapMetrics enableMetrics() {
+        return map.enableMetrics();
+    }
+
+    /**
+     * Checks whether a given name is valid.
+     */
+    private static void checkKey(String key) throws IllegalArgumentException {
+        if (key == null)
+            throw new IllegalArgumentException("null key");
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public ContactDetails get(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return map.get(ContactName.probe(key));
+    }
+
+    /**
+     * Interns the name and encodes the details before storing them.
+     */
+    public ContactDetails put(String key, ContactDetails value) throws IllegalArgumentException {
+        checkKey(key);
+        return map.put(dictionary.name(key), value == null ? null : dictionary.encode(value));
+    }
+
+    public ContactDetails remove(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return map.remove(ContactName.probe(key));
+    }
+
+    /**
+     * Builds the map from entries sorted by strictly increasing name, as read
+     * from a snapshot, in O(n) time.
+     *
+     * @param entries The sorted entries
+     * @param n       The number of entries
+     * @throws IllegalStateException if the map is not empty
+     */
+    void loadSorted(Iterator<? extends Entry<String, ContactDetails>> entries, int n) {
+        map.loadSorted(new Iterator<Entry<ContactName, ContactDetails>>() {
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public Entry<ContactName, ContactDetails> next() {
+                Entry<String, ContactDetails> entry = entries.next();
+                return new NameEntry<>(dictionary.name(entry.getKey()), dictionary.encode(entry.getValue()));
+            }
+        }, n);
+    }
+
+    public Iterable<String> keySet() {
+        return () -> new Iterator<String>() {
+            private final Iterator<ContactName> names = map.keySet().iterator();
+
+            public boolean hasNext() {
+                return names.hasNext();
+            }
+
+            public String next() {
+                return names.next().toString();
+            }
+        };
+    }
+
+    public Iterable<ContactDetails> values() {
+        return map.values();
+    }
+
+    public Iterable<Entry<String, ContactDetails>> entrySet() {
+        return entries(map.entrySet());
+    }
+
+    public Entry<String, ContactDetails> firstEntry() {
+        return entry(map.firstEntry());
+    }
+
+    public Entry<String, ContactDetails> lastEntry() {
+        return entry(map.lastEntry());
+    }
+
+    public Entry<String, ContactDetails> ceilingEntry(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return entry(map.ceilingEntry(ContactName.probe(key)));
+    }
+
+    public Entry<String, ContactDetails> floorEntry(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return entry(map.floorEntry(ContactName.probe(key)));
+    }
+
+    public Entry<String, ContactDetails> lowerEntry(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return entry(map.lowerEntry(ContactName.probe(key)));
+    }
+
+    public Entry<String, ContactDetails> higherEntry(String key) throws IllegalArgumentException {
+        checkKey(key);
+        return entry(map.higherEntry(ContactName.probe(key)));
+    }
+
+    public Iterable<Entry<String, ContactDetails>> subMap(String fromKey, String toKey)
+            throws IllegalArgumentException {
+        checkKey(fromKey);
+        checkKey(toKey);
+        return entries(map.subMap(ContactName.probe(fromKey), ContactName.probe(toKey)));
+    }
+
+    public Iterable<Entry<String, ContactDetails>> page(int offset, int limit) throws IllegalArgumentException {
+        return entries(map.page(offset, limit));
+    }
+
+    /**
+     * Return the entries of the map in the form of a string, as
+     * BinarySearchTreeMap does.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        String separator = "";
+        for (Entry<ContactName, ContactDetails> entry : map.entrySet()) {
+            text.append(separator).append(String.format("(%s, %s)", entry.getKey(), entry.getValue()));
+            separator = ",";
+        }
+        return text.append("}").toString();
+    }
+
+    /**
+     * Returns an entry keyed by the string of the name of an entry, or null.
+     */
+    private static Entry<String, ContactDetails> entry(Entry<ContactName, ContactDetails> entry) {
+        return entry == null ? null : new NameEntry<>(entry.getKey().toString(), entry.getValue());
+    }
+
+    /**
+     * Returns a view of entries keyed by the strings of their names.
+     */
+    private static Iterable<Entry<String, ContactDetails>> entries(
+            Iterable<Entry<ContactName, ContactDetails>> entries) {
+        return () -> new Iterator<Entry<String, ContactDetails>>() {
+            private final Iterator<Entry<ContactName, ContactDetails>> iterator = entries.iterator();
+
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            public Entry<String, ContactDetails> next() {
+                return entry(iterator.next());
+            }
+        };
+    }
+
+    /**
+     * An immutable key-value pair.
+     */
+    private static final class NameEntry<K> implements Entry<K, ContactDetails> {
+        private final K key;
+        private final ContactDetails value;
+
+        NameEntry(K key, ContactDetails value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public ContactDetails getValue() {
+            return value;
+        }
+    }
+}
@@ -1,5 +1,8 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
  * Concrete implementation of a binary tree using a node-based, linked
@@ -21,6 +24,11 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
      */
     protected int size = 0;
 
+    /**
+     * Sum of the depths of all the nodes, for the average depth.
+     */
+    protected long totalDepth = 0;
+
     /**
      * Factory function to create a new node storing the given element.
      */
@@ -121,6 +129,8 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         }
         root = createNode(element, null, null, null);
         size = 1;
+        totalDepth = 0;
+        modCount++;
 
         return root;
     }
@@ -145,6 +155,8 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         Node<E> child = createNode(element, parent, null, null);
         parent.setLeft(child);
         size++;
+        totalDepth += resize(parent, 1); // the depth of the child
+        modCount++;
 
         return child;
     }
@@ -167,6 +179,8 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         Node<E> child = createNode(element, parent, null, null);
         parent.setRight(child);
         size++;
+        totalDepth += resize(parent, 1); // the depth of the child
+        modCount++;
 
         return child;
     }
@@ -204,19 +218,28 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         if (isInternal(position)) {
             throw new IllegalArgumentException("position must be a leaf");
         }
-        size += t1.size() + t2.size();
+        int added = t1.size() + t2.size();
+        long addedDepth = t1.totalDepth + t2.totalDepth;
+        size += added;
+        modCount++;
         if (!t1.isEmpty()) {                  // attach t1 as left subtree
             t1.root.setParent(node);
             node.setLeft(t1.root);
             t1.root = null;
             t1.size = 0;
+            t1.totalDepth = 0;
+            t1.modCount++;
         }
         if (!t2.isEmpty()) {                  // attach t2 as right subtree
             t2.root.setParent(node);
             node.setRight(t2.root);
             t2.root = null;
             t2.size = 0;
+            t2.totalDepth = 0;
+            t2.modCount++;
         }
+        int depth = resize(node, added);      // the depth of the attached roots
+        totalDepth += addedDepth + (long) depth * added;
     }
 
     /**
@@ -247,6 +270,9 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
             }
         }
         size--;
+        int depth = resize(node.getParent(), -1);
+        totalDepth -= depth + (node.getSize() - 1); // the descendants move up one level
+        modCount++;
         E temp = node.getElement();
         node.setElement(null);                // help garbage collection
         node.setLeft(null);
@@ -256,65 +282,216 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         return temp;
     }
 
-    public Iterable<E> preorderElements() {
-        List<E> list = new ArrayList<>();
+    /**
+     * Returns the node following a given node in preorder, or null. It is found
+     * through the child and parent links, without recursion or stack.
+     */
+    protected Node<E> preorderNext(Node<E> node) {
+        if (node.getLeft() != null) {
+            return node.getLeft();
+        }
+        if (node.getRight() != null) {
+            return node.getRight();
+        }
+        for (Node<E> parent = node.getParent(); parent != null; node = parent, parent = node.getParent()) {
+            if (node == parent.getLeft() && parent.getRight() != null) {
+                return parent.getRight(); // next subtree to the right
+            }
+        }
+        return null;
+    }
 
-        if (!isEmpty()) {
-            preorderElements(root(), list);
+    /**
+     * Returns the leftmost node of the subtree rooted at a given node.
+     */
+    protected Node<E> leftmost(Node<E> node) {
+        while (node.getLeft() != null) {
+            node = node.getLeft();
         }
+        return node;
+    }
 
-        return list;
+    /**
+     * Returns the node following a given node in inorder, or null.
+     */
+    protected Node<E> inorderNext(Node<E> node) {
+        if (node.getRight() != null) {
+            return leftmost(node.getRight());
+        }
+        Node<E> parent = node.getParent();
+        while (parent != null && node == parent.getRight()) { // climb while coming from the right
+            node = parent;
+            parent = node.getParent();
+        }
+        return parent;
     }
 
+    /**
+     * Returns the first node in postorder of the subtree rooted at a given node.
+     */
+    protected Node<E> postorderFirst(Node<E> node) {
+        for (;;) {
+            if (node.getLeft() != null) {
+                node = node.getLeft();
+            } else if (node.getRight() != null) {
+                node = node.getRight();
+            } else {
+                return node;
+            }
+        }
+    }
 
-    protected void preorderElements(Position<E> v, List<E> l) {
-        l.add(l.size(), v.getElement());
-        if (left(v) != null) {
-            preorderElements(left(v), l);
+    /**
+     * Returns the node following a given node in postorder, or null.
+     */
+    protected Node<E> postorderNext(Node<E> node) {
+        Node<E> parent = node.getParent();
+        if (parent == null) {
+            return null;
         }
-        if (right(v) != null) {
-            preorderElements(right(v), l);
+        if (node == parent.getLeft() && parent.getRight() != null) {
+            return postorderFirst(parent.getRight()); // right sibling subtree comes first
         }
+        return parent;
     }
 
-    public Iterable<E> inorderElements() {
-        List<E> list = new ArrayList<>();
+    /**
+     * Returns the height of the subtree rooted at Position position, which
+     * every node keeps up to date.
+     *
+     * @param position a valid Position within the tree
+     * @throws IllegalArgumentException if position is not a valid Position
+     */
+    @Override
+    public int height(Position<E> position) throws IllegalArgumentException {
+        return validate(position).getHeight();
+    }
 
-        if (!isEmpty()) {
-            inorderElements(root(), list);
-        }
+    /**
+     * Returns the height of the tree, 0 for an empty tree, in O(1) time.
+     */
+    public int height() {
+        Node<E> top = root; // read once, as monitoring may call it from another thread
+        return top == null ? 0 : top.getHeight();
+    }
+
+    /**
+     * Returns the sum of the depths of all the nodes, in O(1) time.
+     */
+    public long totalDepth() {
+        return totalDepth;
+    }
 
-        return list;
+    /**
+     * Returns the average depth of the nodes, 0 for an empty tree, in O(1)
+     * time. It is the average number of links followed from the root to find
+     * a node.
+     */
+    public double averageDepth() {
+        return size == 0 ? 0 : (double) totalDepth / size;
     }
 
-    protected void inorderElements(Position<E> v, List<E> l) {
-        if (left(v) != null) {
-            inorderElements(left(v), l);
+    /**
+     * Adds a difference to the subtree sizes of a node and its ancestors, and
+     * recomputes their heights.
+     *
+     * @param node  the lowest node whose subtree changed, or null
+     * @param delta the number of nodes added to the subtree, negative if removed
+     * @return the number of nodes updated, which is the depth of node plus one
+     */
+    protected int resize(Node<E> node, int delta) {
+        int updated = 0;
+        for (; node != null; node = node.getParent()) {
+            node.setSize(node.getSize() + delta);
+            node.recomputeHeight();
+            updated++;
         }
-        l.add(l.size(), v.getElement());
-        if (right(v) != null) {
-            inorderElements(right(v), l);
+        return updated;
+    }
+
+    /**
+     * Recomputes the heights of a node and its ancestors after the children of
+     * the node were moved without changing its subtree size, stopping at the
+     * first height that is unchanged.
+     *
+     * @param node the lowest node whose children changed, or null
+     */
+    protected void recomputeHeights(Node<E> node) {
+        for (; node != null; node = node.getParent()) {
+            int height = node.getHeight();
+            node.recomputeHeight();
+            if (node.getHeight() == height) {
+                return;
+            }
         }
     }
 
-    public Iterable<E> postorderElements() {
-        List<E> list = new ArrayList<>();
+    /**
+     * Returns an iterable collection of positions of the tree in preorder. The
+     * collection is a view streamed from the tree by preorderNext.
+     */
+    @Override
+    public Iterable<Position<E>> preorder() {
+        return () -> new NodeIterator<>(root, this::preorderNext, node -> node);
+    }
 
-        if (!isEmpty()) {
-            postorderElements(root(), list);
-        }
+    /**
+     * Returns an iterable collection of the elements of the tree in preorder,
+     * streamed lazily from the tree.
+     */
+    public Iterable<E> preorderElements() {
+        return () -> new NodeIterator<>(root, this::preorderNext, Node::getElement);
+    }
 
-        return list;
+    /**
+     * Returns an iterable collection of the elements of the tree in inorder,
+     * streamed lazily from the tree.
+     */
+    public Iterable<E> inorderElements() {
+        return () -> new NodeIterator<>(root == null ? null : leftmost(root), this::inorderNext, Node::getElement);
     }
 
-    protected void postorderElements(Position<E> v, List<E> l) {
-        if (left(v) != null) {
-            postorderElements(left(v), l);
+    /**
+     * Returns an iterable collection of the elements of the tree in postorder,
+     * streamed lazily from the tree.
+     */
+    public Iterable<E> postorderElements() {
+        return () -> new NodeIterator<>(root == null ? null : postorderFirst(root), this::postorderNext,
+                Node::getElement);
+    }
+
+    /**
+     * Iterator over the nodes in the order given by a successor function,
+     * holding only the next node, and returning a value of each node. It fails
+     * fast if the tree is structurally modified during the iteration.
+     */
+    private class NodeIterator<T> implements Iterator<T> {
+        private Node<E> next;
+        private final UnaryOperator<Node<E>> advance;
+        private final Function<Node<E>, T> value;
+        private final int expectedModCount = modCount;
+
+        NodeIterator(Node<E> first, UnaryOperator<Node<E>> advance, Function<Node<E>, T> value) {
+            this.next = first;
+            this.advance = advance;
+            this.value = value;
         }
-        if (right(v) != null) {
-            postorderElements(right(v), l);
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException("no more elements");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<E> current = next;
+            next = advance.apply(current);
+            return value.apply(current);
         }
-        l.add(l.size(), v.getElement());
     }
 
     /**
@@ -341,6 +518,16 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
          */
         private Node<E> right;
 
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private int size;
+
+        /**
+         * Height of the subtree rooted at this node, 0 for a leaf.
+         */
+        private int height;
+
         /**
          * Constructs a node with the given element and neighbors.
          *
@@ -354,6 +541,8 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
             parent = above;
             left = leftChild;
             right = rightChild;
+            size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+            recomputeHeight();
         }
 
         // accessor methods
@@ -389,6 +578,25 @@ public class LinkedBinaryTree<E> extends AbstractBinaryTree<E> {
         public void setRight(Node<E> rightChild) {
             right = rightChild;
         }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Recomputes the height from the heights of the children.
+         */
+        public void recomputeHeight() {
+            height = 1 + Math.max(left == null ? -1 : left.height, right == null ? -1 : right.height);
+        }
     }
 
 }
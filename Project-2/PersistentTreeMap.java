@@ -0,0 +1,497 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted map stored in a persistent AVL tree. Nodes are never modified: put
+ * and remove copy only the nodes on the path from the root to the changed
+ * entry, O(log n) of them, and share every other subtree with the previous
+ * version before publishing the new root. snapshot() therefore returns an
+ * immutable map of the current version in O(1), which can be read and
+ * iterated by any thread while writers keep updating this map.
+ * <p>
+ * Writers are serialized by the map's monitor, while readers never lock:
+ * every read works on the root it loaded once at its start. The tree cannot
+ * extend LinkedBinaryTree, whose parent links would prevent sharing a subtree
+ * between two versions.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class PersistentTreeMap<K, V> implements SortedMap<K, V> {
+
+    /**
+     * comparator for collection of objects
+     */
+    private final Comparator<K> comparator;
+
+    /**
+     * Root of the current version, or null if the map is empty.
+     */
+    private volatile PersistentNode<K, V> root;
+
+    /**
+     * Whether this map is a snapshot that rejects updates.
+     */
+    private final boolean frozen;
+
+    /**
+     * Creates an empty map with a default comparator.
+     */
+    public PersistentTreeMap() {
+        this(new DefaultComparator<>());
+    }
+
+    /**
+     * Creates an empty map with the given comparator.
+     *
+     * @param comparator comparator defining the order of keys in the map
+     */
+    public PersistentTreeMap(Comparator<K> comparator) {
+        this(comparator, null, false);
+    }
+
+    private PersistentTreeMap(Comparator<K> comparator, PersistentNode<K, V> root, boolean frozen) {
+        this.comparator = comparator;
+        this.root = root;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Returns an immutable map of the entries currently in this map. Later
+     * updates of this map are not visible in the snapshot.
+     *
+     * @return The snapshot, sharing all its nodes with this map
+     */
+    public PersistentTreeMap<K, V> snapshot() {
+        return frozen ? this : new PersistentTreeMap<>(comparator, root, true);
+    }
+
+    /**
+     * Checks whether a given key is valid.
+     */
+    protected void checkKey(K key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("null key");
+        }
+    }
+
+    /**
+     * Checks that the map accepts updates.
+     */
+    private void checkWritable() throws UnsupportedOperationException {
+        if (frozen) {
+            throw new UnsupportedOperationException("snapshots are immutable");
+        }
+    }
+
+    public int size() {
+        return count(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        PersistentNode<K, V> node = root;
+        while (node != null) {
+            int comp = comparator.compare(key, node.key);
+            if (comp == 0) {
+                return node.value;
+            }
+            node = comp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public synchronized V put(K key, V value) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        checkWritable();
+        PersistentNode<K, V> current = root;
+        PersistentNode<K, V> previous = find(current, key);
+        root = insert(current, key, value);
+        return previous == null ? null : previous.value;
+    }
+
+    public synchronized V remove(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        checkWritable();
+        PersistentNode<K, V> current = root;
+        PersistentNode<K, V> previous = find(current, key);
+        if (previous == null) {
+            return null; // key not found, the version is unchanged
+        }
+        root = delete(current, key);
+        return previous.value;
+    }
+
+    /**
+     * Returns the node holding a given key in a given version, or null.
+     */
+    private PersistentNode<K, V> find(PersistentNode<K, V> node, K key) {
+        while (node != null) {
+            int comp = comparator.compare(key, node.key);
+            if (comp == 0) {
+                return node;
+            }
+            node = comp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at a given node with a given entry
+     * inserted or replaced.
+     */
+    private PersistentNode<K, V> insert(PersistentNode<K, V> node, K key, V value) {
+        if (node == null) {
+            return new PersistentNode<>(key, value, null, null);
+        }
+        int comp = comparator.compare(key, node.key);
+        if (comp == 0) {
+            return new PersistentNode<>(key, value, node.left, node.right); // same shape, new value
+        }
+        if (comp < 0) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        }
+        return balance(node.key, node.value, node.left, insert(node.right, key, value));
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at a given node without the entry
+     * of a given key, which is known to be present.
+     */
+    private PersistentNode<K, V> delete(PersistentNode<K, V> node, K key) {
+        int comp = comparator.compare(key, node.key);
+        if (comp < 0) {
+            return balance(node.key, node.value, delete(node.left, key), node.right);
+        }
+        if (comp > 0) {
+            return balance(node.key, node.value, node.left, delete(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right; // shared as is
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        PersistentNode<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, deleteFirst(node.right));
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at a given node without its least
+     * entry.
+     */
+    private PersistentNode<K, V> deleteFirst(PersistentNode<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, deleteFirst(node.left), node.right);
+    }
+
+    private static int height(PersistentNode<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int count(PersistentNode<?, ?> node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Creates a node from an entry and two subtrees whose heights differ by at
+     * most 2, applying the AVL rotations needed to restore balance.
+     */
+    private PersistentNode<K, V> balance(K key, V value, PersistentNode<K, V> left, PersistentNode<K, V> right) {
+        if (height(left) > height(right) + 1) { // left side too tall
+            if (height(left.left) < height(left.right)) { // double rotation
+                PersistentNode<K, V> middle = left.right;
+                return new PersistentNode<>(middle.key, middle.value,
+                        new PersistentNode<>(left.key, left.value, left.left, middle.left),
+                        new PersistentNode<>(key, value, middle.right, right));
+            }
+            return new PersistentNode<>(left.key, left.value, left.left,
+                    new PersistentNode<>(key, value, left.right, right));
+        }
+        if (height(right) > height(left) + 1) { // right side too tall
+            if (height(right.right) < height(right.left)) { // double rotation
+                PersistentNode<K, V> middle = right.left;
+                return new PersistentNode<>(middle.key, middle.value,
+                        new PersistentNode<>(key, value, left, middle.left),
+                        new PersistentNode<>(right.key, right.value, middle.right, right.right));
+            }
+            return new PersistentNode<>(right.key, right.value,
+                    new PersistentNode<>(key, value, left, right.left), right.right);
+        }
+        return new PersistentNode<>(key, value, left, right);
+    }
+
+    public Entry<K, V> firstEntry() {
+        PersistentNode<K, V> node = root;
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    public Entry<K, V> lastEntry() {
+        PersistentNode<K, V> node = root;
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    public Entry<K, V> ceilingEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return ceiling(root, key, true);
+    }
+
+    public Entry<K, V> higherEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return ceiling(root, key, false);
+    }
+
+    public Entry<K, V> floorEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return floor(root, key, true);
+    }
+
+    public Entry<K, V> lowerEntry(K key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        return floor(root, key, false);
+    }
+
+    /**
+     * Returns the node with the least key greater than a given key (or equal
+     * to it when inclusive is true) in a given version, or null.
+     */
+    private PersistentNode<K, V> ceiling(PersistentNode<K, V> node, K key, boolean inclusive) {
+        PersistentNode<K, V> best = null;
+        while (node != null) {
+            int comp = comparator.compare(key, node.key);
+            if (comp < 0 || (comp == 0 && inclusive)) {
+                best = node;
+                if (comp == 0) {
+                    return best;
+                }
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the node with the greatest key less than a given key (or equal to
+     * it when inclusive is true) in a given version, or null.
+     */
+    private PersistentNode<K, V> floor(PersistentNode<K, V> node, K key, boolean inclusive) {
+        PersistentNode<K, V> best = null;
+        while (node != null) {
+            int comp = comparator.compare(key, node.key);
+            if (comp > 0 || (comp == 0 && inclusive)) {
+                best = node;
+                if (comp == 0) {
+                    return best;
+                }
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the entries with keys from fromKey inclusive to toKey exclusive,
+     * as a view of the version current when this method is called.
+     */
+    public Iterable<Entry<K, V>> subMap(K fromKey, K toKey) throws IllegalArgumentException {
+        checkKey(fromKey); // may throw an IllegalArgumentException
+        checkKey(toKey);
+        PersistentNode<K, V> version = root;
+        return () -> new EntryIterator(version, fromKey, toKey);
+    }
+
+    /**
+     * Returns at most limit entries starting at the given index, as a view of
+     * the version current when this method is called. The first entry is found
+     * in O(log n) with the entry counts of the nodes.
+     */
+    public Iterable<Entry<K, V>> page(int offset, int limit) throws IllegalArgumentException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("invalid page");
+        }
+        PersistentNode<K, V> version = root;
+        return () -> new EntryIterator(version, offset, limit);
+    }
+
+    /**
+     * Returns the keys as a view of the version current when this method is
+     * called.
+     */
+    public Iterable<K> keySet() {
+        PersistentNode<K, V> version = root;
+        return () -> new Iterator<K>() {
+            private final EntryIterator entries = new EntryIterator(version, null, null);
+
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public K next() {
+                return entries.next().getKey();
+            }
+        };
+    }
+
+    /**
+     * Returns the values as a view of the version current when this method is
+     * called.
+     */
+    public Iterable<V> values() {
+        PersistentNode<K, V> version = root;
+        return () -> new Iterator<V>() {
+            private final EntryIterator entries = new EntryIterator(version, null, null);
+
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public V next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    /**
+     * Returns the entries as a view of the version current when this method is
+     * called.
+     */
+    public Iterable<Entry<K, V>> entrySet() {
+        PersistentNode<K, V> version = root;
+        return () -> new EntryIterator(version, null, null);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        String separator = "";
+        for (Entry<K, V> entry : entrySet()) {
+            text.append(separator).append(String.format("(%s, %s)", entry.getKey(), entry.getValue()));
+            separator = ",";
+        }
+        return text.append("}").toString();
+    }
+
+    /**
+     * In-order iterator over one version of the tree within optional key bounds.
+     * Since nodes have no parent links, the path of pending ancestors is kept on
+     * a stack of O(log n) nodes.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Deque<PersistentNode<K, V>> path = new ArrayDeque<>();
+
+        /**
+         * exclusive upper bound of the keys to return, or null for no bound
+         */
+        private final K toKey;
+
+        /**
+         * number of entries left to return
+         */
+        private int remaining = Integer.MAX_VALUE;
+
+        EntryIterator(PersistentNode<K, V> node, K fromKey, K toKey) {
+            this.toKey = toKey;
+            while (node != null) { // stack the ancestors of the first entry at or above fromKey
+                if (fromKey == null || comparator.compare(node.key, fromKey) >= 0) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        EntryIterator(PersistentNode<K, V> node, int offset, int limit) {
+            this.toKey = null;
+            this.remaining = limit;
+            while (node != null) { // stack the ancestors of the entry at the offset
+                int leftCount = count(node.left);
+                if (offset <= leftCount) {
+                    path.push(node);
+                    node = offset == leftCount ? null : node.left;
+                } else {
+                    offset -= leftCount + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return remaining > 0 && !path.isEmpty()
+                    && (toKey == null || comparator.compare(path.peek().key, toKey) < 0);
+        }
+
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("no more entries");
+            }
+            PersistentNode<K, V> current = path.pop();
+            remaining--;
+            for (PersistentNode<K, V> node = current.right; node != null; node = node.left) {
+                path.push(node);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Immutable tree node, also serving as the entry it stores.
+     */
+    private static final class PersistentNode<K, V> implements Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final PersistentNode<K, V> left;
+        private final PersistentNode<K, V> right;
+
+        /**
+         * height of the subtree, 1 for a leaf
+         */
+        private final int height;
+
+        /**
+         * number of entries in the subtree
+         */
+        private final int count;
+
+        PersistentNode(K key, V value, PersistentNode<K, V> left, PersistentNode<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            height = 1 + Math.max(PersistentTreeMap.height(left), PersistentTreeMap.height(right));
+            count = 1 + PersistentTreeMap.count(left) + PersistentTreeMap.count(right);
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Comparator;
+
+/**
+ * An implementation of a sorted map using a red-black tree. The color of each
+ * node is stored in its auxiliary field (0 for black, 1 for red), with
+ * missing children counted as black, so that the tree height stays within
+ * 2 log(n+1).
+ *
+ * @author Michael T. Goodrich
+ * @author Roberto Tamassia
+ * @author Michael H. Goldwasser
+ */
+public class RBTreeMap<K, V> extends BinarySearchTreeMap<K, V> {
+
+    /**
+     * Constructs an empty map using the natural ordering of keys.
+     */
+    public RBTreeMap() {
+        super();
+    }
+
+    /**
+     * Constructs an empty map using the given comparator to order keys.
+     *
+     * @param comparator comparator defining the order of keys in the map
+     */
+    public RBTreeMap(Comparator<K> comparator) {
+        super(comparator);
+    }
+
+    // we use the inherited aux field with convention that 0=black and 1=red
+    // (note that new leaves will be black by default, as aux=0, and that a
+    // missing child is black)
+    private boolean isBlack(Position<Entry<K, V>> position) {
+        return position == null || getAux(position) == 0;
+    }
+
+    private boolean isRed(Position<Entry<K, V>> position) {
+        return position != null && getAux(position) == 1;
+    }
+
+    private void makeBlack(Position<Entry<K, V>> position) {
+        setAux(position, 0);
+    }
+
+    private void makeRed(Position<Entry<K, V>> position) {
+        setAux(position, 1);
+    }
+
+    private void setColor(Position<Entry<K, V>> position, boolean toRed) {
+        setAux(position, toRed ? 1 : 0);
+    }
+
+    /**
+     * Overrides the BinarySearchTreeMap hook to color a node placed by
+     * loadSorted. Every missing child of the balanced tree is at the two deepest
+     * levels, so coloring the deepest level red, unless it is the root, and all
+     * other nodes black gives every path the same black height.
+     */
+    @Override
+    protected int balancedAux(int height, int depth, int maxDepth) {
+        return depth == maxDepth && depth > 0 ? 1 : 0;
+    }
+
+    /**
+     * Overrides the BinarySearchTreeMap hook to rebalance after an insertion.
+     */
+    @Override
+    protected void rebalanceInsert(Position<Entry<K, V>> position) {
+        if (!isRoot(position)) {
+            makeRed(position); // the new internal node is initially colored red
+            resolveRed(position); // but this may cause a double-red problem
+        }
+    }
+
+    /**
+     * Remedies potential double-red violation above red position.
+     */
+    private void resolveRed(Position<Entry<K, V>> position) {
+        Position<Entry<K, V>> parent, uncle, middle, grand; // used in case analysis
+        parent = parent(position);
+        if (isRed(parent)) { // double-red problem exists
+            uncle = sibling(parent);
+            if (isBlack(uncle)) { // Case 1: misshapen 4-node
+                middle = restructure(position); // do trinode restructuring
+                makeBlack(middle);
+                makeRed(left(middle));
+                makeRed(right(middle));
+            } else { // Case 2: overfull 5-node
+                makeBlack(parent); // perform recoloring
+                makeBlack(uncle);
+                grand = parent(parent);
+                if (!isRoot(grand)) {
+                    makeRed(grand); // grandparent becomes red
+                    resolveRed(grand); // recur at red grandparent
+                }
+            }
+        }
+    }
+
+    /**
+     * Overrides the BinarySearchTreeMap hook to rebalance after a removal.
+     */
+    @Override
+    protected void rebalanceDelete(Position<Entry<K, V>> parent, Position<Entry<K, V>> child, int removedAux) {
+        if (removedAux == 1) {
+            return; // removing a red node keeps the black depth
+        }
+        if (isRed(child)) { // removed black node had a red child
+            makeBlack(child); // so this restores black depth
+        } else if (parent != null) {
+            // the side of the parent that lost the black node is a missing child,
+            // since the removed node had at most one child and it was not red
+            remedyDoubleBlack(parent, left(parent) == null);
+        }
+    }
+
+    /**
+     * Remedies a presumed double-black violation on the given side of a
+     * position, whose other child is therefore present.
+     */
+    private void remedyDoubleBlack(Position<Entry<K, V>> z, boolean leftSide) {
+        Position<Entry<K, V>> y = leftSide ? right(z) : left(z); // sibling of the double-black side
+        if (isBlack(y)) {
+            if (isRed(left(y)) || isRed(right(y))) { // Case 1: trinode restructuring
+                Position<Entry<K, V>> x = (isRed(left(y)) ? left(y) : right(y));
+                Position<Entry<K, V>> middle = restructure(x);
+                setColor(middle, isRed(z)); // root of restructured subtree gets z's old color
+                makeBlack(left(middle));
+                makeBlack(right(middle));
+            } else { // Case 2: recoloring
+                makeRed(y);
+                if (isRed(z)) {
+                    makeBlack(z); // problem is resolved
+                } else if (!isRoot(z)) {
+                    remedyDoubleBlack(parent(z), z == left(parent(z))); // propagate the problem
+                }
+            }
+        } else { // Case 3: reorient 3-node
+            rotate(y);
+            makeBlack(y);
+            makeRed(z);
+            remedyDoubleBlack(z, leftSide); // restart the process at z
+        }
+    }
+}
@@ -0,0 +1,655 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A sorted map with String keys stored in a radix tree, a trie whose chains
+ * of single children are compressed into one edge labeled by a substring.
+ * Keys sharing a prefix, such as contact names with the same last name, share
+ * the nodes of that prefix, and no key is stored whole: it is rebuilt from
+ * the labels on the path to its node when an entry is returned. Labels are
+ * kept as char arrays, which take less memory than String objects.
+ * <p>
+ * The children of a node are kept in an array sorted by the first character
+ * of their label, and a node holding a value comes before its children, so an
+ * in-order walk lists the keys in the order of String.compareTo. Finding a
+ * key costs O(k log s) for a key of length k and nodes of at most s children,
+ * whatever the number of entries. Every node also counts the entries of its
+ * subtree, so the rank of a key, the entry at an index, pages and key ranges
+ * are found in one walk down the tree, and prefixMap lists the keys starting
+ * with a prefix by walking only the subtree of that prefix.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class RadixTreeMap<V> implements SortedMap<String, V> {
+
+    /**
+     * The root, labeled by the empty string, holding the entry of the empty key
+     * if any.
+     */
+    private final RadixNode<V> root = new RadixNode<>(new char[0]);
+
+    /**
+     * Creates an empty map.
+     */
+    public RadixTreeMap() {
+    }
+
+    /**
+     * Checks whether a given key is valid.
+     */
+    protected void checkKey(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("null key");
+        }
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     */
+    public int size() {
+        return root.count;
+    }
+
+    /**
+     * Tests whether the map is empty.
+     */
+    public boolean isEmpty() {
+        return root.count == 0;
+    }
+
+    /**
+     * Returns the child of a node whose label starts with a character, or null.
+     */
+    private static <V> RadixNode<V> child(RadixNode<V> node, char first) {
+        int index = childIndex(node, first);
+        return index < 0 ? null : node.children[index];
+    }
+
+    /**
+     * Returns the index of the child of a node whose label starts with a
+     * character, or -(insertion point) - 1 if there is none.
+     */
+    private static <V> int childIndex(RadixNode<V> node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = node.children[mid].label[0];
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Returns the node whose path spells the key, or null.
+     */
+    private RadixNode<V> findNode(String key) {
+        RadixNode<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = child(node, key.charAt(i));
+            if (node == null || commonLength(key, i, node.label) < node.label.length) {
+                return null;
+            }
+            i += node.label.length;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the value associated with the specified key, or null if no such
+     * entry exists.
+     */
+    public V get(String key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        RadixNode<V> node = findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Associates the given value with the given key, returning any overridden
+     * value. A new key splits at most one edge and adds at most two nodes.
+     */
+    public V put(String key, V value) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        RadixNode<V> existing = findNode(key);
+        if (existing != null && existing.hasValue) {
+            V old = existing.value;
+            existing.value = value;
+            return old;
+        }
+        RadixNode<V> node = root;
+        int i = 0;
+        for (;;) {
+            node.count++; // the key is new, so every node on its path gains an entry
+            if (i == key.length()) {
+                node.value = value;
+                node.hasValue = true;
+                return null;
+            }
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) { // no edge starts with the next character: add a leaf
+                RadixNode<V> leaf = new RadixNode<>(key.substring(i).toCharArray());
+                leaf.value = value;
+                leaf.hasValue = true;
+                leaf.count = 1;
+                node.insertChild(-index - 1, leaf);
+                return null;
+            }
+            RadixNode<V> child = node.children[index];
+            int common = commonLength(key, i, child.label);
+            if (common < child.label.length) { // the key leaves the edge: split it
+                RadixNode<V> middle = new RadixNode<>(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = newChildren(1);
+                middle.children[0] = child;
+                middle.count = child.count;
+                node.children[index] = middle;
+                child = middle;
+            }
+            i += common;
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the length of the common prefix of a key from a given index and a
+     * label.
+     */
+    private static int commonLength(String key, int from, char[] label) {
+        int n = Math.min(key.length() - from, label.length);
+        int common = 0;
+        while (common < n && key.charAt(from + common) == label[common]) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * Removes the entry with the specified key, if present, and returns its
+     * value. A node left without value and with fewer than two children is
+     * merged into its parent or its child, so the tree stays compressed.
+     */
+    public V remove(String key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        RadixNode<V> target = findNode(key);
+        if (target == null || !target.hasValue) {
+            return null;
+        }
+        V old = target.value;
+        RadixNode<V> parent = null;
+        RadixNode<V> grandParent = null;
+        RadixNode<V> node = root;
+        int i = 0;
+        for (;;) {
+            node.count--;
+            if (node == target) {
+                break;
+            }
+            grandParent = parent;
+            parent = node;
+            node = child(node, key.charAt(i));
+            i += node.label.length;
+        }
+        node.value = null;
+        node.hasValue = false;
+        if (node == root) {
+            return old;
+        }
+        if (node.children.length == 0) { // drop the leaf
+            parent.removeChild(childIndex(parent, node.label[0]));
+            if (parent != root && !parent.hasValue && parent.children.length == 1) {
+                merge(grandParent, parent);
+            }
+        } else if (node.children.length == 1) {
+            merge(parent, node);
+        }
+        return old;
+    }
+
+    /**
+     * Replaces a node without value and with a single child by that child,
+     * whose label is extended by the label of the node.
+     */
+    private static <V> void merge(RadixNode<V> parent, RadixNode<V> node) {
+        RadixNode<V> child = node.children[0];
+        char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+        System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+        child.label = label;
+        parent.children[childIndex(parent, node.label[0])] = child;
+    }
+
+    /**
+     * Returns the number of keys strictly less than a given key, which is the
+     * index the key has or would have in key order, in one walk down the tree.
+     *
+     * @param key The key to rank
+     * @return The number of keys less than the key
+     */
+    public int rank(String key) throws IllegalArgumentException {
+        checkKey(key); // may throw an IllegalArgumentException
+        int rank = 0;
+        RadixNode<V> node = root;
+        int i = 0;
+        while (i < key.length()) { // the path of node is a proper prefix of the key
+            if (node.hasValue) {
+                rank++;
+            }
+            char next = key.charAt(i);
+            RadixNode<V> child = null;
+            for (RadixNode<V> candidate : node.children) {
+                char first = candidate.label[0];
+                if (first < next) {
+                    rank += candidate.count; // a whole smaller subtree
+                } else {
+                    child = first == next ? candidate : null;
+                    break;
+                }
+            }
+            if (child == null) {
+                return rank;
+            }
+            int common = commonLength(key, i, child.label);
+            if (common < child.label.length) { // the key leaves or ends inside the edge
+                boolean greater = i + common < key.length() && key.charAt(i + common) > child.label[common];
+                return greater ? rank + child.count : rank;
+            }
+            i += common;
+            node = child;
+        }
+        return rank; // the key of node itself and its descendants are not smaller
+    }
+
+    /**
+     * Returns the entry at a given index in key order, counting from 0, in one
+     * walk down the tree.
+     *
+     * @param index The index of the entry
+     * @return The entry at the index
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public Entry<String, V> select(int index) throws IllegalArgumentException {
+        if (index < 0 || index >= size()) {
+            throw new IllegalArgumentException("invalid index");
+        }
+        return new EntryIterator(index, 1).next();
+    }
+
+    /**
+     * Returns the number of keys starting with a given prefix.
+     */
+    public int prefixCount(String prefix) throws IllegalArgumentException {
+        checkKey(prefix); // may throw an IllegalArgumentException
+        RadixNode<V> node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            node = child(node, prefix.charAt(i));
+            if (node == null) {
+                return 0;
+            }
+            int common = commonLength(prefix, i, node.label);
+            if (common < node.label.length) { // the prefix ends inside the edge, or leaves it
+                return i + common == prefix.length() ? node.count : 0;
+            }
+            i += common;
+        }
+        return node.count;
+    }
+
+    /**
+     * Returns an iterable of the entries whose key starts with a given prefix,
+     * in key order. Only the subtree of the prefix is walked, from the node
+     * found by one walk down the tree.
+     *
+     * @param prefix The beginning of the keys
+     * @return The entries whose key starts with the prefix
+     */
+    public Iterable<Entry<String, V>> prefixMap(String prefix) throws IllegalArgumentException {
+        checkKey(prefix); // may throw an IllegalArgumentException
+        RadixNode<V> node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            node = child(node, prefix.charAt(i));
+            if (node == null) {
+                return () -> new EntryIterator(0, 0);
+            }
+            int common = commonLength(prefix, i, node.label);
+            if (common < node.label.length && i + common < prefix.length()) { // the prefix leaves the edge
+                return () -> new EntryIterator(0, 0);
+            }
+            i += node.label.length; // may pass the end of a prefix ending inside the edge
+        }
+        RadixNode<V> start = node;
+        String parentKey = prefix.substring(0, i - node.label.length);
+        return () -> new EntryIterator(start, parentKey);
+    }
+
+    /**
+     * Returns an iterable collection of the keys of all entries stored in the
+     * map, in key order.
+     */
+    public Iterable<String> keySet() {
+        return () -> new Iterator<String>() {
+            private final EntryIterator entries = new EntryIterator(0, Integer.MAX_VALUE);
+
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public String next() {
+                return entries.next().getKey();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterable collection of the values of all entries stored in
+     * the map, in key order.
+     */
+    public Iterable<V> values() {
+        return () -> new Iterator<V>() {
+            private final EntryIterator entries = new EntryIterator(0, Integer.MAX_VALUE);
+
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            public V next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterable collection of all entries stored in the map, in key
+     * order.
+     */
+    public Iterable<Entry<String, V>> entrySet() {
+        return () -> new EntryIterator(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the entry at a given index, or null if the index is out of range.
+     */
+    private Entry<String, V> entryAt(int index) {
+        return index < 0 || index >= size() ? null : select(index);
+    }
+
+    /**
+     * Returns the entry having the least key (or null if map is empty).
+     */
+    public Entry<String, V> firstEntry() {
+        return entryAt(0);
+    }
+
+    /**
+     * Returns the entry having the greatest key (or null if map is empty).
+     */
+    public Entry<String, V> lastEntry() {
+        return entryAt(size() - 1);
+    }
+
+    /**
+     * Returns the entry with least key greater than or equal to given key (or
+     * null if no such key exists).
+     */
+    public Entry<String, V> ceilingEntry(String key) throws IllegalArgumentException {
+        return entryAt(rank(key));
+    }
+
+    /**
+     * Returns the entry with greatest key less than or equal to given key (or
+     * null if no such key exists).
+     */
+    public Entry<String, V> floorEntry(String key) throws IllegalArgumentException {
+        int rank = rank(key);
+        RadixNode<V> node = findNode(key);
+        return entryAt(node != null && node.hasValue ? rank : rank - 1);
+    }
+
+    /**
+     * Returns the entry with greatest key strictly less than given key (or null
+     * if no such key exists).
+     */
+    public Entry<String, V> lowerEntry(String key) throws IllegalArgumentException {
+        return entryAt(rank(key) - 1);
+    }
+
+    /**
+     * Returns the entry with least key strictly greater than given key (or null
+     * if no such key exists).
+     */
+    public Entry<String, V> higherEntry(String key) throws IllegalArgumentException {
+        int rank = rank(key);
+        RadixNode<V> node = findNode(key);
+        return entryAt(node != null && node.hasValue ? rank + 1 : rank);
+    }
+
+    /**
+     * Returns an iterable of the entries with keys in the range from fromKey
+     * inclusive to toKey exclusive, found from the ranks of the two keys.
+     */
+    public Iterable<Entry<String, V>> subMap(String fromKey, String toKey) throws IllegalArgumentException {
+        int start = rank(fromKey); // may throw an IllegalArgumentException
+        int end = rank(toKey);
+        return () -> new EntryIterator(start, end - start);
+    }
+
+    /**
+     * Returns an iterable of at most limit entries in key order, starting with
+     * the entry at a given offset.
+     *
+     * @param offset The index of the first entry of the page
+     * @param limit  The maximum number of entries in the page
+     * @return The entries of the page
+     */
+    public Iterable<Entry<String, V>> page(int offset, int limit) throws IllegalArgumentException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("invalid page");
+        }
+        return () -> new EntryIterator(offset, limit);
+    }
+
+    /**
+     * Return the entries of the map in the form of a string, as
+     * BinarySearchTreeMap does.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        String separator = "";
+        for (Entry<String, V> entry : entrySet()) {
+            text.append(separator).append(String.format("(%s, %s)", entry.getKey(), entry.getValue()));
+            separator = ",";
+        }
+        return text.append("}").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> RadixNode<V>[] newChildren(int length) {
+        return (RadixNode<V>[]) new RadixNode<?>[length];
+    }
+
+    /**
+     * Lazy iterator over the entries in key order from a given index. It keeps
+     * the path from the root to the current node, with the index of the next
+     * child to visit at each level, and the key of the current node.
+     */
+    private class EntryIterator implements Iterator<Entry<String, V>> {
+        private RadixNode<V>[] path = newChildren(16); // nodes from the root
+        private int[] nextChild = new int[16];          // next child to visit at each level
+        private int depth = 0;                          // number of nodes on the path
+        private final StringBuilder key = new StringBuilder(); // key of the last node on the path
+        private boolean valuePending;                  // whether the last node's value is still to return
+        private int remaining;                          // entries left to return
+        private Entry<String, V> next;                  // next entry, or null at the end
+
+        /**
+         * constructor to iterate over at most limit entries from a given index
+         */
+        EntryIterator(int index, int limit) {
+            remaining = limit;
+            if (index >= root.count || limit <= 0) {
+                return;
+            }
+            RadixNode<V> node = root;
+            push(node);
+            for (;;) { // descend to the entry at the index, as select does
+                if (node.hasValue) {
+                    if (index == 0) {
+                        valuePending = true;
+                        break;
+                    }
+                    index--;
+                }
+                int k = 0;
+                while (index >= node.children[k].count) {
+                    index -= node.children[k++].count;
+                }
+                nextChild[depth - 1] = k + 1;
+                node = node.children[k];
+                push(node);
+            }
+            next = advance();
+        }
+
+        /**
+         * constructor to iterate over the entries of the subtree of a node,
+         * given the key of its parent
+         */
+        EntryIterator(RadixNode<V> start, String parentKey) {
+            remaining = Integer.MAX_VALUE;
+            key.append(parentKey);
+            push(start);
+            valuePending = true;
+            next = advance();
+        }
+
+        private void push(RadixNode<V> node) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, 2 * depth);
+                nextChild = Arrays.copyOf(nextChild, 2 * depth);
+            }
+            path[depth] = node;
+            nextChild[depth++] = 0;
+            key.append(node.label);
+        }
+
+        /**
+         * Returns the next entry in key order, or null.
+         */
+        private Entry<String, V> advance() {
+            if (remaining <= 0) {
+                return null;
+            }
+            while (depth > 0) {
+                RadixNode<V> node = path[depth - 1];
+                if (valuePending) {
+                    valuePending = false;
+                    if (node.hasValue) {
+                        remaining--;
+                        return new RadixEntry<>(key.toString(), node.value);
+                    }
+                } else if (nextChild[depth - 1] < node.children.length) {
+                    push(node.children[nextChild[depth - 1]++]);
+                    valuePending = true;
+                } else { // all children visited: go back up
+                    depth--;
+                    key.setLength(key.length() - node.label.length);
+                }
+            }
+            return null;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Entry<String, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException("no more entries");
+            }
+            Entry<String, V> entry = next;
+            next = advance();
+            return entry;
+        }
+    }
+
+    /**
+     * An immutable key-value pair returned by the map.
+     */
+    private static final class RadixEntry<V> implements Entry<String, V> {
+        private final String key;
+        private final V value;
+
+        RadixEntry(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * A node of the tree: the label of the edge from its parent, its children
+     * sorted by the first character of their label, its entry if any, and the
+     * number of entries of its subtree.
+     */
+    private static final class RadixNode<V> {
+        private static final RadixNode<?>[] NO_CHILDREN = new RadixNode<?>[0];
+
+        char[] label;
+        RadixNode<V>[] children;
+        V value;
+        boolean hasValue;
+        int count;
+
+        @SuppressWarnings("unchecked")
+        RadixNode(char[] label) {
+            this.label = label;
+            this.children = (RadixNode<V>[]) NO_CHILDREN;
+        }
+
+        /**
+         * Inserts a child at a given index; the array is kept exactly full.
+         */
+        void insertChild(int index, RadixNode<V> child) {
+            RadixNode<V>[] grown = newChildren(children.length + 1);
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        /**
+         * Removes the child at a given index.
+         */
+        @SuppressWarnings("unchecked")
+        void removeChild(int index) {
+            if (children.length == 1) {
+                children = (RadixNode<V>[]) NO_CHILDREN;
+                return;
+            }
+            RadixNode<V>[] shrunk = newChildren(children.length - 1);
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+    }
+}
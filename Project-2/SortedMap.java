@@ -0,0 +1,87 @@
+/**
+ * An extension of the Map interface that maintains its entries sorted by key
+ * and supports navigation relative to a given key.
+ *
+ * @author Michael T. Goodrich
+ * @author Roberto Tamassia
+ * @author Michael H. Goldwasser
+ */
+public interface SortedMap<K, V> extends Map<K, V> {
+
+    /**
+     * Returns the entry having the least key (or null if map is empty).
+     *
+     * @return entry with least key (or null if map is empty)
+     */
+    Entry<K, V> firstEntry();
+
+    /**
+     * Returns the entry having the greatest key (or null if map is empty).
+     *
+     * @return entry with greatest key (or null if map is empty)
+     */
+    Entry<K, V> lastEntry();
+
+    /**
+     * Returns the entry with least key greater than or equal to given key
+     * (or null if no such key exists).
+     *
+     * @param key - the lower bound of the searched key
+     * @return entry with least key greater than or equal to given (or null if no such entry)
+     * @throws IllegalArgumentException if the key is not compatible with the map
+     */
+    Entry<K, V> ceilingEntry(K key) throws IllegalArgumentException;
+
+    /**
+     * Returns the entry with greatest key less than or equal to given key
+     * (or null if no such key exists).
+     *
+     * @param key - the upper bound of the searched key
+     * @return entry with greatest key less than or equal to given (or null if no such entry)
+     * @throws IllegalArgumentException if the key is not compatible with the map
+     */
+    Entry<K, V> floorEntry(K key) throws IllegalArgumentException;
+
+    /**
+     * Returns the entry with greatest key strictly less than given key
+     * (or null if no such key exists).
+     *
+     * @param key - the strict upper bound of the searched key
+     * @return entry with greatest key strictly less than given (or null if no such entry)
+     * @throws IllegalArgumentException if the key is not compatible with the map
+     */
+    Entry<K, V> lowerEntry(K key) throws IllegalArgumentException;
+
+    /**
+     * Returns the entry with least key strictly greater than given key
+     * (or null if no such key exists).
+     *
+     * @param key - the strict lower bound of the searched key
+     * @return entry with least key strictly greater than given (or null if no such entry)
+     * @throws IllegalArgumentException if the key is not compatible with the map
+     */
+    Entry<K, V> higherEntry(K key) throws IllegalArgumentException;
+
+    /**
+     * Returns an iterable containing all entries with keys in the range from
+     * fromKey inclusive to toKey exclusive, in key order.
+     *
+     * @param fromKey - the inclusive lower bound of the range
+     * @param toKey   - the exclusive upper bound of the range
+     * @return iterable with keys in desired range
+     * @throws IllegalArgumentException if fromKey or toKey is not compatible with the map
+     */
+    Iterable<Entry<K, V>> subMap(K fromKey, K toKey) throws IllegalArgumentException;
+
+    /**
+     * Returns an iterable containing at most limit entries in key order,
+     * starting with the entry at the given index (0 for the least key).
+     *
+     * @param offset - the index of the first entry of the page
+     * @param limit  - the maximum number of entries in the page
+     * @return iterable with the entries of the page
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    Iterable<Entry<K, V>> page(int offset, int limit) throws IllegalArgumentException;
+
+}
@@ -0,0 +1,249 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of a BinarySearchTreeMap: the number of gets, puts and removes with
+ * their latency histograms, the key comparisons of the searches, the
+ * rotations made by the rebalancing, and the size, height and average depth
+ * of the tree.
+ * <p>
+ * The metrics are recorded only while they are enabled on the map, which
+ * otherwise pays a single null check per operation and per rotation. The
+ * counts are LongAdders and the histogram buckets atomic longs, so the map
+ * may be read by several threads at once, as in a ConcurrentTreeMap. A
+ * latency is counted in the bucket of its power of two in nanoseconds, so a
+ * percentile is known within a factor of two, which is enough to spot a slow
+ * tree at a fixed cost.
+ * <p>
+ * The metrics can be registered as an MBean to be read by a JMX client such
+ * as jconsole.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class TreeMapMetrics implements TreeMapMetricsMBean {
+
+    /**
+     * Number of latency buckets, the last one counting 2^38 ns and more.
+     */
+    private static final int BUCKETS = 40;
+
+    private final BinarySearchTreeMap<?, ?> map; // the instrumented map
+
+    private final Histogram gets = new Histogram();
+    private final Histogram puts = new Histogram();
+    private final Histogram removes = new Histogram();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    private ObjectName name; // name of the registered MBean, or null
+
+    /**
+     * Creates the metrics of a map, as done by enableMetrics of the map.
+     *
+     * @param map The instrumented map
+     */
+    TreeMapMetrics(BinarySearchTreeMap<?, ?> map) {
+        this.map = map;
+    }
+
+    /**
+     * Records a get and its latency.
+     */
+    void recordGet(long nanos) {
+        gets.record(nanos);
+    }
+
+    /**
+     * Records a put and its latency.
+     */
+    void recordPut(long nanos) {
+        puts.record(nanos);
+    }
+
+    /**
+     * Records a remove and its latency.
+     */
+    void recordRemove(long nanos) {
+        removes.record(nanos);
+    }
+
+    /**
+     * Records a search of a key and the number of comparisons it made.
+     */
+    void recordSearch(int keyComparisons) {
+        searches.increment();
+        comparisons.add(keyComparisons);
+    }
+
+    /**
+     * Records a rotation.
+     */
+    void recordRotation() {
+        rotations.increment();
+    }
+
+    public long getGets() {
+        return gets.count();
+    }
+
+    public long getPuts() {
+        return puts.count();
+    }
+
+    public long getRemoves() {
+        return removes.count();
+    }
+
+    public long getComparisons() {
+        return comparisons.sum();
+    }
+
+    public double getComparisonsPerSearch() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double) comparisons.sum() / count;
+    }
+
+    public long getRotations() {
+        return rotations.sum();
+    }
+
+    public int getSize() {
+        return map.size();
+    }
+
+    public int getHeight() {
+        return map.height();
+    }
+
+    public double getAverageDepth() {
+        return map.averageDepth();
+    }
+
+    public long[] getGetLatencyHistogram() {
+        return gets.buckets();
+    }
+
+    public long[] getPutLatencyHistogram() {
+        return puts.buckets();
+    }
+
+    public long[] getRemoveLatencyHistogram() {
+        return removes.buckets();
+    }
+
+    public String getSummary() {
+        return toString();
+    }
+
+    public void reset() {
+        gets.reset();
+        puts.reset();
+        removes.reset();
+        searches.reset();
+        comparisons.reset();
+        rotations.reset();
+    }
+
+    /**
+     * Registers the metrics as an MBean of the platform MBean server, under the
+     * name "Contacts:type=TreeMapMetrics,name=" followed by the given name.
+     *
+     * @param mapName The name of the map
+     * @return The name of the MBean
+     * @throws JMException if the MBean could not be registered
+     */
+    public ObjectName register(String mapName) throws JMException {
+        ObjectName objectName = new ObjectName("Contacts:type=TreeMapMetrics,name=" + ObjectName.quote(mapName));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        name = objectName;
+        return objectName;
+    }
+
+    /**
+     * Unregisters the MBean, if registered.
+     *
+     * @throws JMException if the MBean could not be unregistered
+     */
+    public void unregister() throws JMException {
+        if (name != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            name = null;
+        }
+    }
+
+    /**
+     * Returns the metrics as text, with the median and 99th percentile
+     * latencies given as the upper bounds of their buckets.
+     */
+    @Override
+    public String toString() {
+        return String.format("size %d, height %d, average depth %.2f, %.2f comparisons per search, %d rotations%n"
+                + "get    %s%nput    %s%nremove %s", getSize(), getHeight(), getAverageDepth(),
+                getComparisonsPerSearch(), getRotations(), gets, puts, removes);
+    }
+
+    /**
+     * Counts of values by power of two.
+     */
+    private static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Counts a value in the bucket of the least power of two above it.
+         */
+        void record(long value) {
+            counts.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(Math.max(value, 0)), BUCKETS - 1));
+        }
+
+        long count() {
+            long count = 0;
+            for (int b = 0; b < BUCKETS; b++)
+                count += counts.get(b);
+            return count;
+        }
+
+        long[] buckets() {
+            long[] buckets = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++)
+                buckets[b] = counts.get(b);
+            return buckets;
+        }
+
+        void reset() {
+            for (int b = 0; b < BUCKETS; b++)
+                counts.set(b, 0);
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding a given fraction of the
+         * values, in the order of the values, or 0 without values.
+         */
+        long percentile(long[] buckets, long count, double fraction) {
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0)
+                    return 1L << b;
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            long[] buckets = buckets();
+            long count = 0;
+            for (long bucket : buckets)
+                count += bucket;
+            return String.format("%d operations, p50 < %d ns, p99 < %d ns", count, percentile(buckets, count, 0.5),
+                    percentile(buckets, count, 0.99));
+        }
+    }
+}
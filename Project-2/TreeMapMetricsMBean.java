@@ -0,0 +1,82 @@
+/**
+ * Management interface of TreeMapMetrics, through which JMX clients such as
+ * jconsole read the metrics of a tree map.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public interface TreeMapMetricsMBean {
+
+    /**
+     * Returns the number of get operations.
+     */
+    long getGets();
+
+    /**
+     * Returns the number of put operations.
+     */
+    long getPuts();
+
+    /**
+     * Returns the number of remove operations.
+     */
+    long getRemoves();
+
+    /**
+     * Returns the number of key comparisons made by the searches.
+     */
+    long getComparisons();
+
+    /**
+     * Returns the average number of key comparisons per search.
+     */
+    double getComparisonsPerSearch();
+
+    /**
+     * Returns the number of rotations made to rebalance the tree.
+     */
+    long getRotations();
+
+    /**
+     * Returns the number of entries of the map.
+     */
+    int getSize();
+
+    /**
+     * Returns the current height of the tree.
+     */
+    int getHeight();
+
+    /**
+     * Returns the average depth of the entries of the tree.
+     */
+    double getAverageDepth();
+
+    /**
+     * Returns the get latencies by power of two buckets: bucket b counts the
+     * latencies of less than 2^b nanoseconds not counted by bucket b - 1.
+     */
+    long[] getGetLatencyHistogram();
+
+    /**
+     * Returns the put latencies by power of two buckets.
+     */
+    long[] getPutLatencyHistogram();
+
+    /**
+     * Returns the remove latencies by power of two buckets.
+     */
+    long[] getRemoveLatencyHistogram();
+
+    /**
+     * Returns the metrics as text.
+     */
+    String getSummary();
+
+    /**
+     * Sets all the counts and histograms back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,228 @@
+import benchmarks.Targets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.TreeMap;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Gives the benchmarks of the benchmarks package access to the structures of
+ * the project, which they cannot name from their package.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public class JmhTargets implements Targets {
+
+    public MapTarget map(String kind) {
+        switch (kind) {
+            case "BinarySearchTreeMap":
+                return target(new BinarySearchTreeMap<>());
+            case "AVLTreeMap":
+                return target(new AVLTreeMap<>());
+            case "RBTreeMap":
+                return target(new RBTreeMap<>());
+            case "PersistentTreeMap":
+                return target(new PersistentTreeMap<>());
+            case "RadixTreeMap":
+                return target(new RadixTreeMap<>());
+            case "java.util.TreeMap":
+                return baseline(new TreeMap<>());
+            case "java.util.HashMap":
+                return baseline(new HashMap<>());
+            default:
+                throw new IllegalArgumentException("unknown map: " + kind);
+        }
+    }
+
+    /**
+     * Adapts a map of this project to the benchmark operations.
+     */
+    private static MapTarget target(Map<String, Integer> map) {
+        return new MapTarget() {
+            public void put(String key, Integer value) {
+                map.put(key, value);
+            }
+
+            public Integer get(String key) {
+                return map.get(key);
+            }
+
+            public Integer remove(String key) {
+                return map.remove(key);
+            }
+
+            public void entries(Blackhole blackhole) {
+                for (Entry<String, Integer> entry : map.entrySet()) {
+                    blackhole.consume(entry.getValue());
+                }
+            }
+
+            public void keys(Blackhole blackhole) {
+                for (String key : map.keySet()) {
+                    blackhole.consume(key);
+                }
+            }
+        };
+    }
+
+    /**
+     * Adapts a java.util.Map baseline to the benchmark operations.
+     */
+    private static MapTarget baseline(java.util.Map<String, Integer> map) {
+        return new MapTarget() {
+            public void put(String key, Integer value) {
+                map.put(key, value);
+            }
+
+            public Integer get(String key) {
+                return map.get(key);
+            }
+
+            public Integer remove(String key) {
+                return map.remove(key);
+            }
+
+            public void entries(Blackhole blackhole) {
+                for (java.util.Map.Entry<String, Integer> entry : map.entrySet()) {
+                    blackhole.consume(entry.getValue());
+                }
+            }
+
+            public void keys(Blackhole blackhole) {
+                for (String key : map.keySet()) {
+                    blackhole.consume(key);
+                }
+            }
+        };
+    }
+
+    public TreeTarget tree(int size, String shape, long seed) {
+        LinkedBinaryTree<Integer> tree;
+        switch (shape) {
+            case "balanced":
+                tree = balanced(0, size);
+                break;
+            case "random":
+                tree = random(size, new Random(seed));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown shape: " + shape);
+        }
+        return new TreeTarget() {
+            public void preorder(Blackhole blackhole) {
+                for (Position<Integer> position : tree.preorder()) {
+                    blackhole.consume(position);
+                }
+            }
+
+            public void preorderElements(Blackhole blackhole) {
+                for (Integer element : tree.preorderElements()) {
+                    blackhole.consume(element);
+                }
+            }
+
+            public void inorderElements(Blackhole blackhole) {
+                for (Integer element : tree.inorderElements()) {
+                    blackhole.consume(element);
+                }
+            }
+
+            public void postorderElements(Blackhole blackhole) {
+                for (Integer element : tree.postorderElements()) {
+                    blackhole.consume(element);
+                }
+            }
+
+            public void elements(Blackhole blackhole) {
+                for (Integer element : tree) {
+                    blackhole.consume(element);
+                }
+            }
+        };
+    }
+
+    /**
+     * Builds a tree of the elements from first inclusive to last exclusive, in
+     * inorder, with the middle element at the root. The subtrees are built
+     * first and attached, so every node is linked once.
+     */
+    private static LinkedBinaryTree<Integer> balanced(int first, int last) {
+        LinkedBinaryTree<Integer> tree = new LinkedBinaryTree<>();
+        if (first < last) {
+            int middle = (first + last) >>> 1;
+            tree.attach(tree.addRoot(middle), balanced(first, middle), balanced(middle + 1, last));
+        }
+        return tree;
+    }
+
+    /**
+     * Builds a tree with the shape of a binary search tree filled with the
+     * given number of distinct random keys.
+     */
+    private static LinkedBinaryTree<Integer> random(int size, Random random) {
+        LinkedBinaryTree<Integer> tree = new LinkedBinaryTree<>();
+        while (tree.size() < size) {
+            int key = random.nextInt();
+            if (tree.isEmpty()) {
+                tree.addRoot(key);
+                continue;
+            }
+            Position<Integer> position = tree.root();
+            while (key != position.getElement()) {
+                Position<Integer> child = key < position.getElement() ? tree.left(position) : tree.right(position);
+                if (child == null) {
+                    if (key < position.getElement()) {
+                        tree.addLeft(position, key);
+                    } else {
+                        tree.addRight(position, key);
+                    }
+                    break;
+                }
+                position = child;
+            }
+        }
+        return tree;
+    }
+
+    public NameTarget names(String kind) {
+        SortedMap<String, Integer> map;
+        switch (kind) {
+            case "AVLTreeMap":
+                map = new AVLTreeMap<>();
+                break;
+            case "RBTreeMap":
+                map = new RBTreeMap<>();
+                break;
+            case "PersistentTreeMap":
+                map = new PersistentTreeMap<>();
+                break;
+            case "RadixTreeMap":
+                map = new RadixTreeMap<>();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown map: " + kind);
+        }
+        return new NameTarget() {
+            public void put(String name, Integer value) {
+                map.put(name, value);
+            }
+
+            public void prefix(String prefix, int limit, Blackhole blackhole) {
+                String upperBound = prefix.substring(0, prefix.length() - 1)
+                        + (char) (prefix.charAt(prefix.length() - 1) + 1); // the prefixes hold letters only
+                Iterable<Entry<String, Integer>> range = map instanceof RadixTreeMap
+                        ? ((RadixTreeMap<Integer>) map).prefixMap(prefix)
+                        : map.subMap(prefix, upperBound);
+                int listed = 0;
+                for (Entry<String, Integer> entry : range) {
+                    blackhole.consume(entry.getValue());
+                    if (++listed == limit) {
+                        break;
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the sorted maps on contact names of the form "Last, First" with a
+ * prefix autocomplete query, listing the first 10 names starting with a last
+ * name prefix.
+ * <p>
+ * The setup also prints the heap retained per entry by each map, including
+ * the keys the map keeps: every map is given its own copy of the keys, so the
+ * keys it drops are not counted. It is found in the output of the forks, as
+ * JMH has no score for it.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContactNamesBenchmark {
+
+    @Param({ "AVLTreeMap", "RBTreeMap", "PersistentTreeMap", "RadixTreeMap" })
+    String map;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    int size;
+
+    private Targets.NameTarget names;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] contactNames = KeySets.contactNames(size, random);
+        prefixes = new String[1000];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = contactNames[random.nextInt(size)];
+            prefixes[i] = name.substring(0, Math.min(name.length(), 3));
+        }
+        long before = usedHeap();
+        names = Targets.load().names(map);
+        for (int i = 0; i < size; i++) {
+            names.put(new String(contactNames[i].toCharArray()), i); // a key with its own bytes
+        }
+        System.out.format("%n%s retains %d bytes per entry%n", map, (usedHeap() - before) / size);
+    }
+
+    /**
+     * Returns the heap in use after a garbage collection.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public void prefix(Blackhole blackhole) {
+        String prefix = prefixes[next];
+        next = next + 1 == prefixes.length ? 0 : next + 1;
+        names.prefix(prefix, 10, blackhole);
+    }
+}
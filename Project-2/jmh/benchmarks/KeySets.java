@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Key sets of the benchmarks: the keys in insertion order and the sequence of
+ * keys looked up. Sorted keys are inserted in ascending order; Zipfian keys
+ * are inserted in random order and looked up with a Zipf(1) skew towards a few
+ * hot keys.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+final class KeySets {
+
+    final String[] inserted;
+    final String[] lookups;
+
+    private KeySets(String[] inserted, String[] lookups) {
+        this.inserted = inserted;
+        this.lookups = lookups;
+    }
+
+    /**
+     * Builds the random, sorted or zipfian key set of a given size.
+     */
+    static KeySets of(String kind, int size, Random random) {
+        String[] sorted = new String[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = String.format("contact-%09d", i);
+        }
+        if (kind.equals("sorted")) {
+            return new KeySets(sorted, sorted);
+        }
+        List<String> shuffled = new ArrayList<>(List.of(sorted));
+        Collections.shuffle(shuffled, random);
+        String[] randomOrder = shuffled.toArray(new String[0]);
+        switch (kind) {
+            case "random":
+                return new KeySets(randomOrder, randomOrder);
+            case "zipfian":
+                String[] zipfLookups = new String[size];
+                double logRange = Math.log(size + 1.0);
+                for (int i = 0; i < size; i++) { // P(rank <= k) is about log(k + 1) / log(n + 1) for Zipf(1)
+                    int rank = (int) Math.exp(random.nextDouble() * logRange) - 1;
+                    zipfLookups[i] = randomOrder[Math.min(rank, size - 1)];
+                }
+                return new KeySets(randomOrder, zipfLookups);
+            default:
+                throw new IllegalArgumentException("unknown key set: " + kind);
+        }
+    }
+
+    /**
+     * Builds contact names of the form "Last, First" in random order, with last
+     * and first names drawn from pools as in a real address book.
+     */
+    static String[] contactNames(int size, Random random) {
+        String[] syllables = { "ba", "ri", "mo", "ka", "lee", "son", "ta", "ne", "gu", "do", "vi", "shi" };
+        String[] lastNames = new String[Math.max(1, size / 20)];
+        for (int i = 0; i < lastNames.length; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = 2 + random.nextInt(3); j > 0; j--) {
+                name.append(syllables[random.nextInt(syllables.length)]);
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            lastNames[i] = name.append(i).toString(); // a distinct last name
+        }
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = lastNames[random.nextInt(lastNames.length)] + ", "
+                    + syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)] + i;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the traversals of a LinkedBinaryTree: the preorder positions,
+ * the preorder, inorder and postorder elements, and the element iterator. Each
+ * is timed per full traversal of a balanced tree and of a tree with the shape
+ * of a binary search tree filled in random order, which is about three times
+ * deeper.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LinkedBinaryTreeBenchmark {
+
+    @Param({ "balanced", "random" })
+    String shape;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    private Targets.TreeTarget tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = Targets.load().tree(size, shape, 42);
+    }
+
+    @Benchmark
+    public void preorder(Blackhole blackhole) {
+        tree.preorder(blackhole);
+    }
+
+    @Benchmark
+    public void preorderElements(Blackhole blackhole) {
+        tree.preorderElements(blackhole);
+    }
+
+    @Benchmark
+    public void inorderElements(Blackhole blackhole) {
+        tree.inorderElements(blackhole);
+    }
+
+    @Benchmark
+    public void postorderElements(Blackhole blackhole) {
+        tree.postorderElements(blackhole);
+    }
+
+    @Benchmark
+    public void elements(Blackhole blackhole) {
+        tree.elements(blackhole);
+    }
+}
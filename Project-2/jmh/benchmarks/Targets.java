@@ -0,0 +1,99 @@
+package benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The structures of the project as seen by the benchmarks. JMH rejects
+ * benchmark classes in the default package, and a class in a named package
+ * cannot refer to the classes of the default package, where the project lives.
+ * The benchmarks therefore reach the project through these interfaces,
+ * implemented by the JmhTargets class of the default package, which is loaded
+ * by name once per trial.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+public interface Targets {
+
+    /**
+     * Operations measured on every map implementation.
+     */
+    interface MapTarget {
+        void put(String key, Integer value);
+
+        Integer get(String key);
+
+        Integer remove(String key);
+
+        /**
+         * Passes the value of every entry of entrySet to the blackhole.
+         */
+        void entries(Blackhole blackhole);
+
+        /**
+         * Passes every key of keySet to the blackhole.
+         */
+        void keys(Blackhole blackhole);
+    }
+
+    /**
+     * Traversals measured on a LinkedBinaryTree.
+     */
+    interface TreeTarget {
+        void preorder(Blackhole blackhole);
+
+        void preorderElements(Blackhole blackhole);
+
+        void inorderElements(Blackhole blackhole);
+
+        void postorderElements(Blackhole blackhole);
+
+        void elements(Blackhole blackhole);
+    }
+
+    /**
+     * Operations measured on the sorted maps holding contact names.
+     */
+    interface NameTarget {
+        void put(String name, Integer value);
+
+        /**
+         * Passes the values of at most limit entries whose key starts with the
+         * prefix to the blackhole, in key order.
+         */
+        void prefix(String prefix, int limit, Blackhole blackhole);
+    }
+
+    /**
+     * Returns a new empty map of the given kind: BinarySearchTreeMap,
+     * AVLTreeMap, RBTreeMap, PersistentTreeMap, RadixTreeMap,
+     * java.util.TreeMap or java.util.HashMap.
+     */
+    MapTarget map(String kind);
+
+    /**
+     * Returns a LinkedBinaryTree of the given number of nodes, either
+     * "balanced" (complete but for its last level) or "random" (the shape of a
+     * binary search tree filled in random order).
+     */
+    TreeTarget tree(int size, String shape, long seed);
+
+    /**
+     * Returns a new empty sorted map of the given kind: AVLTreeMap, RBTreeMap,
+     * PersistentTreeMap or RadixTreeMap.
+     */
+    NameTarget names(String kind);
+
+    /**
+     * Loads the implementation from the default package.
+     */
+    static Targets load() {
+        try {
+            return (Targets) Class.forName("JmhTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("JmhTargets is not on the class path", ex);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the map implementations of the project, with
+ * java.util.TreeMap and java.util.HashMap as baselines, on random, sorted and
+ * Zipfian key sets.
+ * <p>
+ * get is timed per lookup on a filled map, cycling through the lookup keys.
+ * entrySet and keySet are timed per full iteration of the map. put fills an
+ * empty map with all the keys and remove empties a filled map, each timed as
+ * a single shot per iteration, since a steady state of one insertion or one
+ * removal does not exist; divide their score by the size for the time per
+ * operation.
+ * <p>
+ * The default sizes go from 1000 to 1000000 entries; pass -p size=10000000
+ * with a larger heap (-jvmArgs -Xmx8g) for the largest one. The plain
+ * BinarySearchTreeMap is not run on sorted keys above 20000 entries, where it
+ * degenerates into a list: its setup fails and JMH goes on with the next
+ * parameters.
+ *
+ * @author Baile Benedicte
+ * version 1.0.0
+ * 10/18/2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TreeMapBenchmark {
+
+    /**
+     * Largest number of sorted keys given to the unbalanced tree.
+     */
+    private static final int UNBALANCED_SORTED_LIMIT = 20000;
+
+    @Param({ "BinarySearchTreeMap", "AVLTreeMap", "RBTreeMap", "PersistentTreeMap", "RadixTreeMap",
+            "java.util.TreeMap", "java.util.HashMap" })
+    String map;
+
+    @Param({ "random", "sorted", "zipfian" })
+    String keys;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    int size;
+
+    private Targets targets;
+    private KeySets keySet;
+    private Targets.MapTarget filled;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (map.equals("BinarySearchTreeMap") && keys.equals("sorted") && size > UNBALANCED_SORTED_LIMIT) {
+            throw new IllegalStateException("skipped: sorted keys make the unbalanced tree a list");
+        }
+        targets = Targets.load();
+        keySet = KeySets.of(keys, size, new Random(42));
+        filled = filledMap();
+    }
+
+    /**
+     * Returns a new map of the benchmarked kind.
+     */
+    Targets.MapTarget emptyMap() {
+        return targets.map(map);
+    }
+
+    /**
+     * Returns a new map of the benchmarked kind holding all the keys.
+     */
+    Targets.MapTarget filledMap() {
+        Targets.MapTarget target = emptyMap();
+        for (int i = 0; i < size; i++) {
+            target.put(keySet.inserted[i], i);
+        }
+        return target;
+    }
+
+    /**
+     * An empty map for every iteration of put.
+     */
+    @State(Scope.Thread)
+    public static class EmptyMap {
+        Targets.MapTarget target;
+
+        @Setup(Level.Iteration)
+        public void setUp(TreeMapBenchmark benchmark) {
+            target = benchmark.emptyMap();
+        }
+    }
+
+    /**
+     * A filled map for every iteration of remove.
+     */
+    @State(Scope.Thread)
+    public static class FilledMap {
+        Targets.MapTarget target;
+
+        @Setup(Level.Iteration)
+        public void setUp(TreeMapBenchmark benchmark) {
+            target = benchmark.filledMap();
+        }
+    }
+
+    @Benchmark
+    public Integer get() {
+        String key = keySet.lookups[next];
+        next = next + 1 == size ? 0 : next + 1;
+        return filled.get(key);
+    }
+
+    @Benchmark
+    public void entrySet(Blackhole blackhole) {
+        filled.entries(blackhole);
+    }
+
+    @Benchmark
+    public void keySet(Blackhole blackhole) {
+        filled.keys(blackhole);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Object put(EmptyMap empty) {
+        Targets.MapTarget target = empty.target;
+        for (int i = 0; i < size; i++) {
+            target.put(keySet.inserted[i], i);
+        }
+        return target;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public void remove(FilledMap full, Blackhole blackhole) {
+        Targets.MapTarget target = full.target;
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(target.remove(keySet.inserted[i]));
+        }
+    }
+}